@@ -4,21 +4,31 @@ package com.testlog.projet;
 import com.testlog.projet.criteria.AdditionalCriteria;
 import com.testlog.projet.criteria.CityCriteria;
 import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.optimize.ConnectionScanOptimizer;
 import com.testlog.projet.optimize.Optimizer;
-import com.testlog.projet.optimize.TransportOptimizer;
+import com.testlog.projet.optimize.city.CachingCitySolver;
 import com.testlog.projet.optimize.city.CityOptimizer;
 import com.testlog.projet.optimize.city.CitySolver;
+import com.testlog.projet.optimize.city.CpSatCitySolver;
+import com.testlog.projet.optimize.city.ICitySolver;
+import com.testlog.projet.optimize.city.MatchingCitySolver;
+import com.testlog.projet.optimize.city.SolverPool;
 import com.testlog.projet.services.ActivityService;
+import com.testlog.projet.services.CachingCityService;
+import com.testlog.projet.services.CityRegistry;
 import com.testlog.projet.services.HotelService;
 import com.testlog.projet.services.TransportService;
 import com.testlog.projet.services.io.FileReader;
 import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.Hotel;
 import com.testlog.projet.types.Package;
+import com.testlog.projet.types.SimpleTrip;
 import com.testlog.projet.types.TransportationMode;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class Main {
 
@@ -41,15 +51,40 @@ public class Main {
     private static Optimizer getOptimizer() {
         FileReader sharedReader = new FileReader();
 
-        TransportService transportService = new TransportService(sharedReader);
-        HotelService hotelService = new HotelService(sharedReader);
-        ActivityService activityService = new ActivityService(sharedReader);
+        // Same city ids in all the services
+        CityRegistry cities = new CityRegistry();
+        TransportService transportService = new TransportService(sharedReader, cities);
+        HotelService hotelService = new HotelService(sharedReader, cities);
+        ActivityService activityService = new ActivityService(sharedReader, cities);
 
-        TransportOptimizer transportOptimizer = new TransportOptimizer(transportService);
+        Duration timeToLive = Duration.ofMinutes(10);
+        CachingCityService<SimpleTrip> cachedTransports = new CachingCityService<>(transportService, 10_000, timeToLive, CachingCityService.byMinute());
+        CachingCityService<Hotel> cachedHotels = new CachingCityService<>(hotelService, 1_000, timeToLive, CachingCityService.byDay());
 
-        CitySolver citySolver = new CitySolver();
-        CityOptimizer cityOptimizer = new CityOptimizer(hotelService, activityService, citySolver);
+        ConnectionScanOptimizer transportOptimizer = new ConnectionScanOptimizer(cachedTransports);
 
-        return new Optimizer(transportOptimizer, cityOptimizer);
+        // Hotels of a city are evaluated in parallel, on "cityOptimizer.threads" threads (all the processors by default)
+        int cityThreads = Integer.getInteger("cityOptimizer.threads", Runtime.getRuntime().availableProcessors());
+        // Hotels are solved within "cityOptimizer.timeBudgetMillis" ms (no limit by default), stays cut short are reported as not optimal
+        Long timeBudgetMillis = Long.getLong("cityOptimizer.timeBudgetMillis");
+        Duration timeBudget = timeBudgetMillis == null ? null : Duration.ofMillis(timeBudgetMillis);
+        // Activities are not cached: the service builds them once per city, with the spatial index used to find those near each hotel
+        CityOptimizer cityOptimizer = new CityOptimizer(cachedHotels, activityService, new CachingCitySolver(getCitySolver(cityThreads), 10_000), timeBudget, cityThreads);
+
+        return new Optimizer(transportOptimizer, cityOptimizer, transportService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * The solver is chosen with the "citySolver" system property: "matching" (default), "cbc" or "cpsat".
+     * The number of CP-SAT search workers is set with "citySolver.workers" (all the processors by default).
+     * CBC solvers are lent by a pool with one solver per hotel evaluated at the same time.
+     */
+    private static ICitySolver getCitySolver(int cityThreads) {
+        return switch (System.getProperty("citySolver", "matching")) {
+            case "matching" -> new MatchingCitySolver();
+            case "cbc" -> new CitySolver(new SolverPool(cityThreads));
+            case "cpsat" -> new CpSatCitySolver(Integer.getInteger("citySolver.workers", Runtime.getRuntime().availableProcessors()));
+            default -> throw new IllegalArgumentException("Unknown city solver: " + System.getProperty("citySolver"));
+        };
     }
 }
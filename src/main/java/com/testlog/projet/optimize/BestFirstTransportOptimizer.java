@@ -0,0 +1,167 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.ITransportBounds;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Best-first (A*) transport optimizer.
+ * Partial trips are expanded by increasing cost plus a lower bound on the remaining cost to the destination,
+ * and dropped as soon as their price plus the cheapest remaining fare exceeds the budget.
+ * The bounds never overestimate, so the first trip reaching the destination is optimal and the search stops there.
+ */
+public class BestFirstTransportOptimizer implements ITransportOptimizer {
+    private final ICityService<SimpleTrip> transportService;
+    private final ITransportBounds transportBounds;
+
+    public BestFirstTransportOptimizer(ICityService<SimpleTrip> transportService, ITransportBounds transportBounds) {
+        this.transportService = transportService;
+        this.transportBounds = transportBounds;
+    }
+
+    @Override
+    public ComposedTrip getOptimizedTrip(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        boolean minimizePrice = transportCriteria.preferMinPricesOverMinDuration();
+        TransportationMode mode = transportCriteria.preferredMode();
+
+        PriorityQueue<Label> open = new PriorityQueue<>((a, b) -> {
+            int compare = Double.compare(a.estimate, b.estimate);
+            if (compare != 0) return compare;
+            return precedes(a, b) ? -1 : precedes(b, a) ? 1 : 0;
+        });
+        Map<String, List<Label>> expanded = new HashMap<>();
+
+        Label root = new Label(origin, date, 0, 0, 0, remaining(origin, destination, mode, minimizePrice), null, null, -1);
+        if (transportBounds.getMinPrice(origin, destination, mode) <= maxPrice) {
+            open.add(root);
+        }
+
+        while (!open.isEmpty()) {
+            Label label = open.poll();
+            if (label.city.equals(destination)) {
+                return new ComposedTrip(unwind(label));
+            }
+
+            List<Label> cityLabels = expanded.computeIfAbsent(label.city, k -> new ArrayList<>());
+            if (isDominated(label, cityLabels)) continue;
+            cityLabels.add(label);
+
+            List<SimpleTrip> trips = filterTransportCriteria(transportService.getForCity(label.city, label.arrival), transportCriteria);
+            for (int i = 0; i < trips.size(); i++) {
+                SimpleTrip trip = trips.get(i);
+                double price = label.price + trip.price();
+                // Prune the branch if even the cheapest way to finish the trip is over budget
+                if (price + transportBounds.getMinPrice(trip.arrivalCity(), destination, mode) > maxPrice) continue;
+
+                double duration = label.duration + Duration.between(trip.departureTime(), trip.arrivalTime()).toMinutes();
+                double cost = minimizePrice ? price : duration;
+                double estimate = cost + remaining(trip.arrivalCity(), destination, mode, minimizePrice);
+                open.add(new Label(trip.arrivalCity(), trip.arrivalTime(), price, duration, cost, estimate, trip, label, i));
+            }
+        }
+
+        throw new IllegalArgumentException("No trips available within the budget");
+    }
+
+    /**
+     * Labels of the best-first search do not cover every criterion of the front, so it is computed by the round-based router.
+     */
+    @Override
+    public List<ComposedTrip> getParetoTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return new RaptorOptimizer(transportService).getParetoTrips(origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    @Override
+    public Stream<ComposedTrip> getRankedTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return KShortestTrips.stream(transportService, origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    private double remaining(String city, String destination, TransportationMode mode, boolean minimizePrice) {
+        return minimizePrice ? transportBounds.getMinPrice(city, destination, mode) : transportBounds.getMinDuration(city, destination, mode);
+    }
+
+    /**
+     * A label is dominated by an already expanded label of the same city that arrived no later, with no higher cost
+     * and no higher price. Equal costs are resolved in the same depth-first order as TransportOptimizer.
+     */
+    private boolean isDominated(Label label, List<Label> others) {
+        for (Label other : others) {
+            if (other.arrival.isAfter(label.arrival) || other.cost > label.cost || other.price > label.price) continue;
+            if (other.cost < label.cost || precedes(other, label)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if the path of 'a' comes before the path of 'b' in depth-first order,
+     * i.e. at the first city where they diverge, 'a' takes a trip listed earlier.
+     */
+    private boolean precedes(Label a, Label b) {
+        List<Label> pathA = labels(a);
+        List<Label> pathB = labels(b);
+        for (int i = 0; i < Math.min(pathA.size(), pathB.size()); i++) {
+            int compare = Integer.compare(pathA.get(i).index, pathB.get(i).index);
+            if (compare != 0) return compare < 0;
+        }
+        return pathA.size() < pathB.size();
+    }
+
+    private List<Label> labels(Label label) {
+        LinkedList<Label> path = new LinkedList<>();
+        for (Label current = label; current.trip != null; current = current.parent) {
+            path.addFirst(current);
+        }
+        return path;
+    }
+
+    private List<SimpleTrip> unwind(Label label) {
+        List<SimpleTrip> path = new ArrayList<>();
+        for (Label current : labels(label)) {
+            path.add(current.trip);
+        }
+        return path;
+    }
+
+    private List<SimpleTrip> filterTransportCriteria(List<SimpleTrip> trips, TransportCriteria transportCriteria) {
+        if (transportCriteria.preferredMode().equals(TransportationMode.NOT_SPECIFIED)) {
+            return trips;
+        }
+        return trips.stream()
+                .filter(trip -> trip.mode() == transportCriteria.preferredMode())
+                .toList();
+    }
+
+    private static final class Label {
+        private final String city;
+        private final LocalDateTime arrival;
+        private final double price;
+        private final double duration;
+        private final double cost;
+        // Cost so far plus the lower bound on the remaining cost
+        private final double estimate;
+        private final SimpleTrip trip;
+        private final Label parent;
+        // Position of the trip in the list returned by the service, used to break ties
+        private final int index;
+
+        private Label(String city, LocalDateTime arrival, double price, double duration, double cost, double estimate, SimpleTrip trip, Label parent, int index) {
+            this.city = city;
+            this.arrival = arrival;
+            this.price = price;
+            this.duration = duration;
+            this.cost = cost;
+            this.estimate = estimate;
+            this.trip = trip;
+            this.parent = parent;
+            this.index = index;
+        }
+    }
+}
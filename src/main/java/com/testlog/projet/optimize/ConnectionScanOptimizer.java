@@ -0,0 +1,307 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Transport optimizer based on the Connection Scan Algorithm.
+ * Every connection reachable from the origin is gathered once, sorted by departure time,
+ * and scanned linearly. Each city keeps the labels (cost, price) that are not dominated,
+ * so the whole search is a single pass over the connection array instead of an enumeration of every path.
+ */
+public class ConnectionScanOptimizer implements ITransportOptimizer {
+    private final ICityService<SimpleTrip> transportService;
+
+    public ConnectionScanOptimizer(ICityService<SimpleTrip> transportService) {
+        this.transportService = transportService;
+    }
+
+    @Override
+    public ComposedTrip getOptimizedTrip(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        Metric metric = transportCriteria.preferMinPricesOverMinDuration() ? Metric.PRICE : Metric.DURATION;
+        return scan(origin, destination, date, transportCriteria, maxPrice, metric);
+    }
+
+    /**
+     * Returns the trip reaching the destination as soon as possible while staying within the budget.
+     */
+    public ComposedTrip getEarliestArrivalTrip(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return scan(origin, destination, date, transportCriteria, maxPrice, Metric.ARRIVAL);
+    }
+
+    /**
+     * Labels of the scan only track cost and price, so the front on (price, arrival, legs) is computed by the round-based router.
+     */
+    @Override
+    public List<ComposedTrip> getParetoTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return new RaptorOptimizer(transportService).getParetoTrips(origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    @Override
+    public Stream<ComposedTrip> getRankedTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return KShortestTrips.stream(transportService, origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    /**
+     * Computes the fastest and the cheapest trips for every departure time from the origin between 'from' and 'to'
+     * with a single backward pass over the connections (profile Connection Scan).
+     * Each city keeps a profile of (departure, best value) entries, added by decreasing departure time
+     * and only if they improve on every later departure.
+     */
+    public DepartureProfile getDepartureProfile(String origin, String destination, LocalDateTime from, LocalDateTime to, TransportCriteria transportCriteria) {
+        Connection[] connections = buildConnections(origin, destination, from, transportCriteria);
+        long latest = toMinutes(to);
+
+        Map<String, List<ProfileEntry>> fastest = new HashMap<>();
+        Map<String, List<ProfileEntry>> cheapest = new HashMap<>();
+
+        for (int i = connections.length - 1; i >= 0; i--) {
+            Connection connection = connections[i];
+            String fromCity = connection.trip().departureCity();
+            String toCity = connection.trip().arrivalCity();
+            if (fromCity.equals(origin) && connection.departure() > latest) continue;
+
+            if (toCity.equals(destination)) {
+                addToProfile(fastest, fromCity, new ProfileEntry(connection.departure(), connection.arrival(), connection, null));
+                addToProfile(cheapest, fromCity, new ProfileEntry(connection.departure(), connection.trip().price(), connection, null));
+                continue;
+            }
+
+            ProfileEntry fastestNext = firstDepartureFrom(fastest.get(toCity), connection.arrival());
+            if (fastestNext != null) {
+                addToProfile(fastest, fromCity, new ProfileEntry(connection.departure(), fastestNext.value(), connection, fastestNext));
+            }
+            ProfileEntry cheapestNext = firstDepartureFrom(cheapest.get(toCity), connection.arrival());
+            if (cheapestNext != null) {
+                double price = connection.trip().price() + cheapestNext.value();
+                addToProfile(cheapest, fromCity, new ProfileEntry(connection.departure(), price, connection, cheapestNext));
+            }
+        }
+
+        return new DepartureProfile(toTrips(fastest.get(origin)), toTrips(cheapest.get(origin)));
+    }
+
+    private ComposedTrip scan(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, double maxPrice, Metric metric) {
+        if (origin.equals(destination)) {
+            return new ComposedTrip(new ArrayList<>());
+        }
+
+        Connection[] connections = buildConnections(origin, destination, date, transportCriteria);
+
+        Map<String, List<Label>> settled = new HashMap<>();
+        Map<String, PriorityQueue<Label>> pending = new HashMap<>();
+
+        long start = toMinutes(date);
+        settled.computeIfAbsent(origin, k -> new ArrayList<>())
+                .add(new Label(metric == Metric.ARRIVAL ? start : 0, 0, start, null, null, new int[0]));
+
+        for (Connection connection : connections) {
+            String from = connection.trip().departureCity();
+            release(from, connection.departure(), settled, pending);
+
+            List<Label> labels = settled.get(from);
+            if (labels == null) continue;
+
+            for (Label label : labels) {
+                double price = label.price() + connection.trip().price();
+                if (price > maxPrice) continue;
+
+                Label candidate = new Label(metric.extend(label, connection), price, connection.arrival(), connection, label, label.extendOrder(connection));
+                String to = connection.trip().arrivalCity();
+                if (isDominated(candidate, settled.get(to), false) || isDominated(candidate, pending.get(to), true)) continue;
+                pending.computeIfAbsent(to, k -> new PriorityQueue<>(Comparator.comparingLong(Label::arrival))).add(candidate);
+            }
+        }
+
+        release(destination, Long.MAX_VALUE, settled, pending);
+
+        Label best = null;
+        for (Label label : settled.getOrDefault(destination, List.of())) {
+            if (best == null || label.cost() < best.cost() || (label.cost() == best.cost() && precedes(label, best))) {
+                best = label;
+            }
+        }
+
+        if (best == null) {
+            throw new IllegalArgumentException("No trips available within the budget");
+        }
+
+        return new ComposedTrip(unwind(best).stream().map(Connection::trip).collect(Collectors.toList()));
+    }
+
+    /**
+     * Collect every connection reachable from the origin and sort them by departure time.
+     * The destination is never expanded since leaving it cannot improve a trip ending there.
+     */
+    private Connection[] buildConnections(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria) {
+        List<Connection> connections = new ArrayList<>();
+        Set<String> visited = new HashSet<>();
+        Deque<String> queue = new ArrayDeque<>();
+        visited.add(origin);
+        queue.add(origin);
+
+        while (!queue.isEmpty()) {
+            String city = queue.poll();
+            if (city.equals(destination)) continue;
+
+            for (SimpleTrip trip : filterTransportCriteria(transportService.getForCity(city, date), transportCriteria)) {
+                connections.add(new Connection(trip, toMinutes(trip.departureTime()), toMinutes(trip.arrivalTime()), connections.size()));
+                if (visited.add(trip.arrivalCity())) {
+                    queue.add(trip.arrivalCity());
+                }
+            }
+        }
+
+        Connection[] sorted = connections.toArray(new Connection[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Connection::departure).thenComparingLong(Connection::arrival));
+        return sorted;
+    }
+
+    /**
+     * Move the labels of a city that arrived before the given time into its settled bag, keeping only non-dominated ones.
+     */
+    private void release(String city, long time, Map<String, List<Label>> settled, Map<String, PriorityQueue<Label>> pending) {
+        PriorityQueue<Label> queue = pending.get(city);
+        if (queue == null) return;
+
+        while (!queue.isEmpty() && queue.peek().arrival() <= time) {
+            Label label = queue.poll();
+            List<Label> bag = settled.computeIfAbsent(city, k -> new ArrayList<>());
+            if (isDominated(label, bag, false)) continue;
+            bag.removeIf(other -> dominates(label, other, false));
+            bag.add(label);
+        }
+    }
+
+    /**
+     * Entries are added by decreasing departure time, so an entry is only useful if it beats the last one added.
+     */
+    private void addToProfile(Map<String, List<ProfileEntry>> profiles, String city, ProfileEntry entry) {
+        List<ProfileEntry> profile = profiles.computeIfAbsent(city, k -> new ArrayList<>());
+        if (!profile.isEmpty()) {
+            ProfileEntry last = profile.getLast();
+            if (last.value() <= entry.value()) return;
+            if (last.departure() == entry.departure()) profile.removeLast();
+        }
+        profile.add(entry);
+    }
+
+    /**
+     * Returns the entry with the earliest departure at or after the given time, i.e. the best one still catchable.
+     * The profile is sorted by decreasing departure time.
+     */
+    private ProfileEntry firstDepartureFrom(List<ProfileEntry> profile, long time) {
+        if (profile == null) return null;
+        int low = 0;
+        int high = profile.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (profile.get(middle).departure() >= time) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low == 0 ? null : profile.get(low - 1);
+    }
+
+    private List<ComposedTrip> toTrips(List<ProfileEntry> profile) {
+        List<ComposedTrip> trips = new ArrayList<>();
+        if (profile == null) return trips;
+
+        for (ProfileEntry entry : profile.reversed()) {
+            List<SimpleTrip> path = new ArrayList<>();
+            for (ProfileEntry current = entry; current != null; current = current.next()) {
+                path.add(current.connection().trip());
+            }
+            trips.add(new ComposedTrip(path));
+        }
+        return trips;
+    }
+
+    private boolean isDominated(Label label, Collection<Label> others, boolean checkArrival) {
+        if (others == null) return false;
+        for (Label other : others) {
+            if (dominates(other, label, checkArrival)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 'a' dominates 'b' if it has no higher cost and no higher price (and arrives no later when checkArrival is set).
+     * When both have the same cost, the trip that comes first in the timetable order wins, like the exhaustive search would.
+     */
+    private boolean dominates(Label a, Label b, boolean checkArrival) {
+        if (checkArrival && a.arrival() > b.arrival()) return false;
+        if (a.cost() > b.cost() || a.price() > b.price()) return false;
+        return a.cost() < b.cost() || precedes(a, b);
+    }
+
+    /**
+     * Returns true if the path of 'a' comes before the path of 'b' in depth-first order,
+     * i.e. at the first city where they diverge, 'a' takes a connection listed earlier.
+     */
+    private boolean precedes(Label a, Label b) {
+        return Arrays.compare(a.order(), b.order()) < 0;
+    }
+
+    private List<Connection> unwind(Label label) {
+        LinkedList<Connection> path = new LinkedList<>();
+        for (Label current = label; current.connection() != null; current = current.parent()) {
+            path.addFirst(current.connection());
+        }
+        return new ArrayList<>(path);
+    }
+
+    private List<SimpleTrip> filterTransportCriteria(List<SimpleTrip> trips, TransportCriteria transportCriteria) {
+        if (transportCriteria.preferredMode().equals(TransportationMode.NOT_SPECIFIED)) {
+            return trips;
+        }
+        return trips.stream()
+                .filter(trip -> trip.mode() == transportCriteria.preferredMode())
+                .toList();
+    }
+
+    private static long toMinutes(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) / 60;
+    }
+
+    private enum Metric {
+        PRICE, DURATION, ARRIVAL;
+
+        double extend(Label label, Connection connection) {
+            return switch (this) {
+                case PRICE -> label.price() + connection.trip().price();
+                case DURATION -> label.cost() + (connection.arrival() - connection.departure());
+                case ARRIVAL -> connection.arrival();
+            };
+        }
+    }
+
+    private record Connection(SimpleTrip trip, long departure, long arrival, int index) {
+    }
+
+    private record ProfileEntry(long departure, double value, Connection connection, ProfileEntry next) {
+    }
+
+    /**
+     * 'order' holds the indexes of the connections of the path, so that comparing two paths in depth-first order
+     * does not walk their parents: arrays are compared element by element, and a prefix comes first.
+     */
+    private record Label(double cost, double price, long arrival, Connection connection, Label parent, int[] order) {
+        int[] extendOrder(Connection next) {
+            int[] extended = Arrays.copyOf(order, order.length + 1);
+            extended[order.length] = next.index();
+            return extended;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.types.ComposedTrip;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+/**
+ * Best trips between two cities as a function of the departure time, over a departure window.
+ * Each function is a step function stored as trips sorted by departure time: the best trip leaving at or after
+ * a given time is the first one departing at or after it, found by binary search.
+ */
+public class DepartureProfile {
+    private final long[] fastestDepartures;
+    private final ComposedTrip[] fastestTrips;
+    private final long[] cheapestDepartures;
+    private final ComposedTrip[] cheapestTrips;
+
+    /**
+     * @param fastestTrips  trips arriving the earliest, sorted by departure time (later departures arrive later)
+     * @param cheapestTrips cheapest trips, sorted by departure time (later departures are more expensive)
+     */
+    public DepartureProfile(List<ComposedTrip> fastestTrips, List<ComposedTrip> cheapestTrips) {
+        this.fastestTrips = fastestTrips.toArray(new ComposedTrip[0]);
+        this.fastestDepartures = departures(this.fastestTrips);
+        this.cheapestTrips = cheapestTrips.toArray(new ComposedTrip[0]);
+        this.cheapestDepartures = departures(this.cheapestTrips);
+    }
+
+    /**
+     * Returns the trip arriving the earliest among those leaving at or after the given time, or null if there is none.
+     */
+    public ComposedTrip getFastestTrip(LocalDateTime departure) {
+        int index = firstDepartureFrom(fastestDepartures, toMinutes(departure));
+        return index < fastestTrips.length ? fastestTrips[index] : null;
+    }
+
+    /**
+     * Returns the cheapest trip among those leaving at or after the given time, or null if there is none.
+     */
+    public ComposedTrip getCheapestTrip(LocalDateTime departure) {
+        int index = firstDepartureFrom(cheapestDepartures, toMinutes(departure));
+        return index < cheapestTrips.length ? cheapestTrips[index] : null;
+    }
+
+    /**
+     * Breakpoints of the earliest arrival function, sorted by departure time.
+     */
+    public List<ComposedTrip> getFastestTrips() {
+        return List.of(fastestTrips);
+    }
+
+    /**
+     * Breakpoints of the cheapest price function, sorted by departure time.
+     */
+    public List<ComposedTrip> getCheapestTrips() {
+        return List.of(cheapestTrips);
+    }
+
+    private static long[] departures(ComposedTrip[] trips) {
+        long[] departures = new long[trips.length];
+        for (int i = 0; i < trips.length; i++) {
+            departures[i] = toMinutes(trips[i].getDepartureTime());
+        }
+        return departures;
+    }
+
+    private static int firstDepartureFrom(long[] departures, long minute) {
+        int low = 0;
+        int high = departures.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (departures[middle] < minute) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Minutes since epoch, rounded up so that a trip leaving before the given time is never returned.
+     */
+    private static long toMinutes(LocalDateTime dateTime) {
+        LocalDateTime truncated = dateTime.truncatedTo(ChronoUnit.MINUTES);
+        long minutes = truncated.toEpochSecond(ZoneOffset.UTC) / 60;
+        return truncated.equals(dateTime) ? minutes : minutes + 1;
+    }
+}
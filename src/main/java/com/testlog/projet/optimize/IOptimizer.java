@@ -5,6 +5,14 @@ import com.testlog.projet.criteria.CityCriteria;
 import com.testlog.projet.criteria.TransportCriteria;
 import com.testlog.projet.types.Package;
 
+import java.util.List;
+
 public interface IOptimizer {
     Package solve(TransportCriteria transportCriteria, CityCriteria cityCriteria, AdditionalCriteria additionalCriteria);
+
+    /**
+     * Same as solve, but returns every package as good as the best one (at most 'limit'),
+     * i.e. with the same trips and a stay that the city criteria cannot tell apart.
+     */
+    List<Package> solveAll(TransportCriteria transportCriteria, CityCriteria cityCriteria, AdditionalCriteria additionalCriteria, int limit);
 }
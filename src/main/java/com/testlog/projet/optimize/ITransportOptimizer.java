@@ -4,7 +4,23 @@ import com.testlog.projet.criteria.TransportCriteria;
 import com.testlog.projet.types.ComposedTrip;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface ITransportOptimizer {
     ComposedTrip getOptimizedTrip(String origin, String destination, LocalDateTime Date, TransportCriteria transportCriteria, Double maxPrice);
+
+    /**
+     * Returns every trip within the budget that is not dominated on total price, arrival time and number of legs,
+     * and on time spent in transports (sum of the durations of the legs) when durations are preferred.
+     * The list is sorted by increasing price, then arrival time, then number of legs. It is empty if no trip is available.
+     */
+    List<ComposedTrip> getParetoTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice);
+
+    /**
+     * Returns the trips within the budget lazily, by increasing total price, or increasing time spent in transports
+     * when durations are preferred. Only the trips that are consumed are searched, so a caller asking for a few
+     * alternatives does not pay for every possible trip.
+     */
+    Stream<ComposedTrip> getRankedTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice);
 }
@@ -0,0 +1,249 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazily enumerates the trips within the budget by increasing cost (Yen's k shortest paths).
+ * Every city reached at a given time is a node of the time-expanded graph, so paths never loop.
+ * The k-th trip is the best detour of one of the previous trips: it shares their first legs (the root),
+ * then takes the best remaining path that avoids the legs they already took from that point.
+ * Only the trips returned so far and their detours are kept in memory.
+ * Equal costs are returned in the same depth-first order as TransportOptimizer.
+ */
+class KShortestTrips implements Iterator<ComposedTrip> {
+    private final ICityService<SimpleTrip> transportService;
+    private final String origin;
+    private final String destination;
+    private final LocalDateTime date;
+    private final TransportCriteria transportCriteria;
+    private final double maxPrice;
+
+    private final Map<String, Map<LocalDateTime, List<SimpleTrip>>> timetable = new HashMap<>();
+    private final List<Path> found = new ArrayList<>();
+    private final PriorityQueue<Path> candidates = new PriorityQueue<>((a, b) -> {
+        int compare = Double.compare(a.cost(), b.cost());
+        return compare != 0 ? compare : compareIndexes(a.indexes(), b.indexes());
+    });
+    private final Set<List<Integer>> seen = new HashSet<>();
+    // Last trip returned, its detours are only searched when the next trip is requested
+    private Path last;
+
+    KShortestTrips(ICityService<SimpleTrip> transportService, String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, double maxPrice) {
+        this.transportService = transportService;
+        this.origin = origin;
+        this.destination = destination;
+        this.date = date;
+        this.transportCriteria = transportCriteria;
+        this.maxPrice = maxPrice;
+
+        Path root = new Path(List.of(), List.of(), 0, 0);
+        if (origin.equals(destination)) {
+            candidates.add(root);
+        } else {
+            addCandidate(search(root, Set.of()));
+        }
+    }
+
+    static Stream<ComposedTrip> stream(ICityService<SimpleTrip> transportService, String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, double maxPrice) {
+        KShortestTrips trips = new KShortestTrips(transportService, origin, destination, date, transportCriteria, maxPrice);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(trips, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (last != null) {
+            addDetours(last);
+            last = null;
+        }
+        return !candidates.isEmpty();
+    }
+
+    @Override
+    public ComposedTrip next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        last = candidates.poll();
+        found.add(last);
+        return new ComposedTrip(new ArrayList<>(last.trips()));
+    }
+
+    /**
+     * For every leg of the path, searches the best trip sharing the legs before it but not the legs
+     * already taken at that point by the trips found so far.
+     */
+    private void addDetours(Path path) {
+        for (int i = 0; i < path.trips().size(); i++) {
+            Path root = prefix(path, i);
+
+            Set<Integer> excluded = new HashSet<>();
+            for (Path other : found) {
+                if (other.trips().size() > i && other.indexes().subList(0, i).equals(root.indexes())) {
+                    excluded.add(other.indexes().get(i));
+                }
+            }
+            addCandidate(search(root, excluded));
+        }
+    }
+
+    private Path prefix(Path path, int size) {
+        double price = 0;
+        double cost = 0;
+        // Sum in the same order as the search so that equal costs compare equal
+        for (SimpleTrip trip : path.trips().subList(0, size)) {
+            price += trip.price();
+            cost = extend(cost, price, trip);
+        }
+        return new Path(path.trips().subList(0, size), path.indexes().subList(0, size), price, cost);
+    }
+
+    private double extend(double cost, double price, SimpleTrip trip) {
+        if (transportCriteria.preferMinPricesOverMinDuration()) {
+            return price;
+        }
+        return cost + Duration.between(trip.departureTime(), trip.arrivalTime()).toMinutes();
+    }
+
+    private void addCandidate(Path path) {
+        if (path != null && seen.add(path.indexes())) {
+            candidates.add(path);
+        }
+    }
+
+    /**
+     * Best-first search of the cheapest way to complete the root within the budget,
+     * without taking any of the excluded trips right after the root. Returns null if there is none.
+     */
+    private Path search(Path root, Set<Integer> excluded) {
+        String start = root.trips().isEmpty() ? origin : root.trips().getLast().arrivalCity();
+        LocalDateTime arrival = root.trips().isEmpty() ? date : root.trips().getLast().arrivalTime();
+
+        PriorityQueue<Label> open = new PriorityQueue<>((a, b) -> {
+            int compare = Double.compare(a.cost, b.cost);
+            return compare != 0 ? compare : compareIndexes(a.indexes(), b.indexes());
+        });
+        Map<String, List<Label>> expanded = new HashMap<>();
+        open.add(new Label(start, arrival, root.price(), root.cost(), null, null, -1));
+
+        while (!open.isEmpty()) {
+            Label label = open.poll();
+            if (label.city.equals(destination)) {
+                return root.extend(label);
+            }
+
+            List<Label> cityLabels = expanded.computeIfAbsent(label.city, k -> new ArrayList<>());
+            if (isDominated(label, cityLabels)) continue;
+            // The start cannot take the excluded trips, so it does not dominate later visits of its city
+            if (label.parent != null || excluded.isEmpty()) {
+                cityLabels.add(label);
+            }
+
+            List<SimpleTrip> trips = getTrips(label.city, label.arrival);
+            for (int i = 0; i < trips.size(); i++) {
+                if (label.parent == null && excluded.contains(i)) continue;
+
+                SimpleTrip trip = trips.get(i);
+                double price = label.price + trip.price();
+                if (price > maxPrice) continue;
+
+                open.add(new Label(trip.arrivalCity(), trip.arrivalTime(), price, extend(label.cost, price, trip), trip, label, i));
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A label is dominated by an expanded label of the same city that arrived no later, with no higher cost
+     * and no higher price. Equal costs are resolved in depth-first order.
+     */
+    private boolean isDominated(Label label, List<Label> others) {
+        for (Label other : others) {
+            if (other.arrival.isAfter(label.arrival) || other.cost > label.cost || other.price > label.price) continue;
+            if (other.cost < label.cost || compareIndexes(other.indexes(), label.indexes()) < 0) return true;
+        }
+        return false;
+    }
+
+    private List<SimpleTrip> getTrips(String city, LocalDateTime time) {
+        return timetable.computeIfAbsent(city, k -> new HashMap<>())
+                .computeIfAbsent(time, k -> filterTransportCriteria(transportService.getForCity(city, time)));
+    }
+
+    private List<SimpleTrip> filterTransportCriteria(List<SimpleTrip> trips) {
+        if (transportCriteria.preferredMode().equals(TransportationMode.NOT_SPECIFIED)) {
+            return trips;
+        }
+        return trips.stream()
+                .filter(trip -> trip.mode() == transportCriteria.preferredMode())
+                .toList();
+    }
+
+    /**
+     * Compares two paths in depth-first order, i.e. by the position of the trips taken at the first city where they diverge.
+     */
+    private static int compareIndexes(List<Integer> a, List<Integer> b) {
+        for (int i = 0; i < Math.min(a.size(), b.size()); i++) {
+            int compare = Integer.compare(a.get(i), b.get(i));
+            if (compare != 0) return compare;
+        }
+        return Integer.compare(a.size(), b.size());
+    }
+
+    /**
+     * A path from the origin, with the position of each trip in the list of trips leaving its city.
+     */
+    private record Path(List<SimpleTrip> trips, List<Integer> indexes, double price, double cost) {
+        Path extend(Label label) {
+            LinkedList<SimpleTrip> suffix = new LinkedList<>();
+            LinkedList<Integer> suffixIndexes = new LinkedList<>();
+            for (Label current = label; current.trip != null; current = current.parent) {
+                suffix.addFirst(current.trip);
+                suffixIndexes.addFirst(current.index);
+            }
+            List<SimpleTrip> allTrips = new ArrayList<>(trips);
+            allTrips.addAll(suffix);
+            List<Integer> allIndexes = new ArrayList<>(indexes);
+            allIndexes.addAll(suffixIndexes);
+            return new Path(allTrips, allIndexes, label.price, label.cost);
+        }
+    }
+
+    private static final class Label {
+        private final String city;
+        private final LocalDateTime arrival;
+        private final double price;
+        private final double cost;
+        private final SimpleTrip trip;
+        private final Label parent;
+        // Position of the trip in the list returned by the service, used to break ties
+        private final int index;
+
+        private Label(String city, LocalDateTime arrival, double price, double cost, SimpleTrip trip, Label parent, int index) {
+            this.city = city;
+            this.arrival = arrival;
+            this.price = price;
+            this.cost = cost;
+            this.trip = trip;
+            this.parent = parent;
+            this.index = index;
+        }
+
+        private List<Integer> indexes() {
+            LinkedList<Integer> indexes = new LinkedList<>();
+            for (Label current = this; current.trip != null; current = current.parent) {
+                indexes.addFirst(current.index);
+            }
+            return indexes;
+        }
+    }
+}
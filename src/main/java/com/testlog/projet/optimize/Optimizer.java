@@ -3,51 +3,172 @@ package com.testlog.projet.optimize;
 import com.testlog.projet.criteria.AdditionalCriteria;
 import com.testlog.projet.criteria.CityCriteria;
 import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.optimize.city.CityPlan;
 import com.testlog.projet.optimize.city.ICityOptimizer;
+import com.testlog.projet.services.ITransportBounds;
 import com.testlog.projet.types.Package;
 import com.testlog.projet.types.*;
 
 import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiFunction;
 
 public class Optimizer implements IOptimizer {
 
     private final ITransportOptimizer transportOptimizer;
     private final ICityOptimizer cityOptimizer;
+    private final ITransportBounds transportBounds;
+    private final Executor executor;
 
     public Optimizer(ITransportOptimizer transportOptimizer, ICityOptimizer cityOptimizer) {
+        this(transportOptimizer, cityOptimizer, null);
+    }
+
+    /**
+     * @param transportBounds all-pairs tables used to reject requests that cannot be satisfied before any search,
+     *                        or null to always run the search
+     */
+    public Optimizer(ITransportOptimizer transportOptimizer, ICityOptimizer cityOptimizer, ITransportBounds transportBounds) {
+        this(transportOptimizer, cityOptimizer, transportBounds, null);
+    }
+
+    /**
+     * @param transportBounds all-pairs tables used to reject requests that cannot be satisfied before any search,
+     *                        or null to always run the search
+     * @param executor        executor running the forward and return searches in parallel, or null to run them one after the other
+     */
+    public Optimizer(ITransportOptimizer transportOptimizer, ICityOptimizer cityOptimizer, ITransportBounds transportBounds, Executor executor) {
         this.transportOptimizer = transportOptimizer;
         this.cityOptimizer = cityOptimizer;
+        this.transportBounds = transportBounds;
+        this.executor = executor;
     }
 
     @Override
     public Package solve(TransportCriteria transportCriteria, CityCriteria cityCriteria, AdditionalCriteria other) {
+        return solve(transportCriteria, other, (forward, backward) -> planStay(forward, backward, cityCriteria, other));
+    }
+
+    @Override
+    public List<Package> solveAll(TransportCriteria transportCriteria, CityCriteria cityCriteria, AdditionalCriteria other, int limit) {
+        return solve(transportCriteria, other, (forward, backward) -> planStays(forward, backward, cityCriteria, other, limit));
+    }
+
+    /**
+     * Searches the forward and return trips, then plans the stay between them.
+     */
+    private <T> T solve(TransportCriteria transportCriteria, AdditionalCriteria other, BiFunction<ComposedTrip, ComposedTrip, T> planner) {
         String origin = other.originCity();
         String destination = other.destinationCity();
 
+        if (transportBounds != null) {
+            checkFeasibility(origin, destination, transportCriteria.preferredMode(), other.maxPrice());
+        }
+
         LocalDateTime returnDate = other.departureDate().plus(other.duration());
+        if (executor != null) {
+            return solveConcurrently(transportCriteria, other, returnDate, planner);
+        }
+
         ComposedTrip forward = transportOptimizer.getOptimizedTrip(origin, destination, other.departureDate(), transportCriteria, other.maxPrice());
         ComposedTrip backward = transportOptimizer.getOptimizedTrip(destination, origin, returnDate, transportCriteria, other.maxPrice() - forward.getPrice());
 
+        return planner.apply(forward, backward);
+    }
+
+    /**
+     * Runs both transport searches in parallel, the return one with the whole budget.
+     * If both trips together exceed the budget, only the return trip is searched again with what the forward trip left,
+     * which gives the same result as the sequential searches. The stay is planned as soon as both trips are settled,
+     * since it needs the arrival time, the return departure and the remaining budget.
+     */
+    private <T> T solveConcurrently(TransportCriteria transportCriteria, AdditionalCriteria other, LocalDateTime returnDate, BiFunction<ComposedTrip, ComposedTrip, T> planner) {
+        String origin = other.originCity();
+        String destination = other.destinationCity();
+        double maxPrice = other.maxPrice();
+
+        CompletableFuture<ComposedTrip> forwardSearch = CompletableFuture.supplyAsync(
+                () -> transportOptimizer.getOptimizedTrip(origin, destination, other.departureDate(), transportCriteria, maxPrice), executor);
+        CompletableFuture<ComposedTrip> backwardSearch = CompletableFuture.supplyAsync(
+                () -> transportOptimizer.getOptimizedTrip(destination, origin, returnDate, transportCriteria, maxPrice), executor);
+
+        CompletableFuture<T> solution = forwardSearch.thenCombineAsync(backwardSearch, (forward, backward) -> {
+            if (forward.getPrice() + backward.getPrice() > maxPrice) {
+                backward = transportOptimizer.getOptimizedTrip(destination, origin, returnDate, transportCriteria, maxPrice - forward.getPrice());
+            }
+            return planner.apply(forward, backward);
+        }, executor);
+
+        try {
+            return solution.join();
+        } catch (CompletionException e) {
+            // Report the same exceptions as the sequential searches (the forward one first)
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    private Package planStay(ComposedTrip forward, ComposedTrip backward, CityCriteria cityCriteria, AdditionalCriteria other) {
+        return planStays(forward, backward, other, (destination, startDay, nbDays, budget, arrival) ->
+                List.of(cityOptimizer.plan(destination, startDay, nbDays, budget, cityCriteria, arrival))).getFirst();
+    }
+
+    /**
+     * Same as planStay, with every stay as good as the best one (at most 'limit').
+     */
+    private List<Package> planStays(ComposedTrip forward, ComposedTrip backward, CityCriteria cityCriteria, AdditionalCriteria other, int limit) {
+        return planStays(forward, backward, other, (destination, startDay, nbDays, budget, arrival) ->
+                cityOptimizer.planAll(destination, startDay, nbDays, budget, cityCriteria, arrival, limit));
+    }
+
+    /**
+     * Plans the stays between the two trips with the budget left after them, or a package without stay if there is none left.
+     */
+    private List<Package> planStays(ComposedTrip forward, ComposedTrip backward, AdditionalCriteria other, StayPlanner planner) {
         LocalDateTime arrival = forward.getArrivalTime();
         LocalDateTime departure = backward.getDepartureTime();
 
         int startDay = arrival.getDayOfWeek().getValue() - 1;
         int nbDays = (int) arrival.until(departure, ChronoUnit.DAYS);
 
-
         double transportCost = forward.getPrice() + backward.getPrice();
         double newBudget = other.maxPrice() - transportCost;
         if (newBudget <= 0) {
-            return new Package(null, null, forward, backward, transportCost);
+            return List.of(new Package(null, null, forward, backward, transportCost));
         }
 
-        Pair<Hotel, List<Activity>> cityTrip;
-        cityTrip = cityOptimizer.optimize(destination, startDay, nbDays, newBudget, cityCriteria, arrival);
+        List<Package> packages = new ArrayList<>();
+        for (CityPlan cityTrip : planner.plan(other.destinationCity(), startDay, nbDays, newBudget, arrival)) {
+            double totalPrice = transportCost + cityOptimizer.getTotalPrice(cityTrip.toPair(), nbDays);
+            packages.add(new Package(cityTrip.activities(), cityTrip.hotel(), forward, backward, totalPrice, cityTrip.optimal()));
+        }
+        return packages;
+    }
 
-        double totalPrice = transportCost + cityOptimizer.getTotalPrice(cityTrip, nbDays);
+    /**
+     * Throws an IllegalArgumentException if the round trip is impossible whatever the dates:
+     * one of the cities cannot be reached, or even the cheapest fares in both directions exceed the budget.
+     */
+    private void checkFeasibility(String origin, String destination, TransportationMode mode, double maxPrice) {
+        if (!transportBounds.isReachable(origin, destination, mode) || !transportBounds.isReachable(destination, origin, mode)) {
+            throw new IllegalArgumentException("No trips available between " + origin + " and " + destination);
+        }
+        double minPrice = transportBounds.getMinPrice(origin, destination, mode) + transportBounds.getMinPrice(destination, origin, mode);
+        if (minPrice > maxPrice) {
+            throw new IllegalArgumentException("No trips available within the budget");
+        }
+    }
 
-        return new Package(cityTrip.second(), cityTrip.first(), forward, backward, totalPrice);
+    /**
+     * Stays in the destination, from the arrival day for 'nbDays' days.
+     */
+    @FunctionalInterface
+    private interface StayPlanner {
+        List<CityPlan> plan(String destination, int startDay, int nbDays, double budget, LocalDateTime arrival);
     }
 }
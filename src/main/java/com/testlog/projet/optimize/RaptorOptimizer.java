@@ -0,0 +1,192 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Round-based multi-criteria router (RAPTOR).
+ * Round k extends the labels improved in round k - 1 by one more leg, so every label found in round k uses exactly k legs.
+ * Each city keeps a bag of labels that are not dominated on (price, arrival time, number of legs),
+ * plus the time spent in transports when durations are preferred, and partial trips that are already dominated by a trip reaching the destination are dropped right away.
+ */
+public class RaptorOptimizer implements ITransportOptimizer {
+    private final ICityService<SimpleTrip> transportService;
+
+    public RaptorOptimizer(ICityService<SimpleTrip> transportService) {
+        this.transportService = transportService;
+    }
+
+    /**
+     * Picks the cheapest trip of the Pareto front, or the one with the least time spent in transports
+     * (sum of the durations of its legs, as TransportOptimizer) when durations are preferred.
+     */
+    @Override
+    public ComposedTrip getOptimizedTrip(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        List<ComposedTrip> front = getParetoTrips(origin, destination, date, transportCriteria, maxPrice);
+        if (front.isEmpty()) {
+            throw new IllegalArgumentException("No trips available within the budget");
+        }
+
+        if (transportCriteria.preferMinPricesOverMinDuration() || front.size() == 1) {
+            return front.getFirst();
+        }
+        // The front is sorted by price, so the first trip with the shortest duration is also the cheapest of them
+        ComposedTrip optimal = front.getFirst();
+        for (ComposedTrip trip : front) {
+            if (duration(trip.getTrips()) < duration(optimal.getTrips())) {
+                optimal = trip;
+            }
+        }
+        return optimal;
+    }
+
+    @Override
+    public List<ComposedTrip> getParetoTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        if (origin.equals(destination)) {
+            return List.of(new ComposedTrip(new ArrayList<>()));
+        }
+
+        Map<String, List<SimpleTrip>> timetable = new HashMap<>();
+        Map<String, List<Label>> bags = new HashMap<>();
+
+        // A later departure can spend less time in transports, so with durations preferred it must not be pruned
+        boolean byDuration = !transportCriteria.preferMinPricesOverMinDuration();
+        Label root = new Label(origin, 0, date, 0, 0, null, null);
+        bags.put(origin, new ArrayList<>(List.of(root)));
+        List<Label> marked = List.of(root);
+
+        while (!marked.isEmpty()) {
+            List<Label> improved = new ArrayList<>();
+
+            for (Label label : marked) {
+                if (label.dominated || label.city.equals(destination)) continue;
+
+                List<SimpleTrip> trips = timetable.computeIfAbsent(label.city,
+                        city -> filterTransportCriteria(transportService.getForCity(city, date), transportCriteria));
+
+                for (SimpleTrip trip : trips) {
+                    if (trip.departureTime().isBefore(label.arrival)) continue;
+
+                    double price = label.price + trip.price();
+                    if (price > maxPrice) continue;
+
+                    Label candidate = new Label(trip.arrivalCity(), price, trip.arrivalTime(), label.legs + 1,
+                            label.duration + duration(trip), trip, label);
+                    // Target pruning: a partial trip cannot beat a trip that already reaches the destination
+                    if (isDominated(candidate, bags.get(destination), byDuration)) continue;
+
+                    if (insert(candidate, bags.computeIfAbsent(candidate.city, k -> new ArrayList<>()), byDuration)) {
+                        improved.add(candidate);
+                    }
+                }
+            }
+            marked = improved;
+        }
+
+        List<Label> front = new ArrayList<>(bags.getOrDefault(destination, List.of()));
+        front.sort(Comparator.<Label>comparingDouble(l -> l.price)
+                .thenComparing(l -> l.arrival)
+                .thenComparingInt(l -> l.legs));
+
+        List<ComposedTrip> trips = new ArrayList<>();
+        for (Label label : front) {
+            trips.add(new ComposedTrip(unwind(label)));
+        }
+        return trips;
+    }
+
+    @Override
+    public Stream<ComposedTrip> getRankedTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return KShortestTrips.stream(transportService, origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    /**
+     * Adds the label to the bag unless it is dominated, and flags the labels of the bag it dominates.
+     * Returns true if the label was added.
+     */
+    private boolean insert(Label label, List<Label> bag, boolean byDuration) {
+        if (isDominated(label, bag, byDuration)) return false;
+
+        bag.removeIf(other -> {
+            if (dominates(label, other, byDuration)) {
+                other.dominated = true;
+                return true;
+            }
+            return false;
+        });
+        bag.add(label);
+        return true;
+    }
+
+    private boolean isDominated(Label label, List<Label> bag, boolean byDuration) {
+        if (bag == null) return false;
+        for (Label other : bag) {
+            if (dominates(other, label, byDuration)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 'a' dominates 'b' if it is not worse on any criterion. Equal labels keep the one found first.
+     */
+    private boolean dominates(Label a, Label b, boolean byDuration) {
+        return a.price <= b.price && !a.arrival.isAfter(b.arrival) && a.legs <= b.legs && (!byDuration || a.duration <= b.duration);
+    }
+
+    /**
+     * Time spent in transports in minutes, as TransportOptimizer.calculateDuration.
+     */
+    private static double duration(SimpleTrip trip) {
+        return Duration.between(trip.departureTime(), trip.arrivalTime()).toMinutes();
+    }
+
+    private static double duration(List<SimpleTrip> trips) {
+        return trips.stream().mapToDouble(RaptorOptimizer::duration).sum();
+    }
+
+    private List<SimpleTrip> unwind(Label label) {
+        LinkedList<SimpleTrip> path = new LinkedList<>();
+        for (Label current = label; current.trip != null; current = current.parent) {
+            path.addFirst(current.trip);
+        }
+        return new ArrayList<>(path);
+    }
+
+    private List<SimpleTrip> filterTransportCriteria(List<SimpleTrip> trips, TransportCriteria transportCriteria) {
+        if (transportCriteria.preferredMode().equals(TransportationMode.NOT_SPECIFIED)) {
+            return trips;
+        }
+        return trips.stream()
+                .filter(trip -> trip.mode() == transportCriteria.preferredMode())
+                .toList();
+    }
+
+    private static final class Label {
+        private final String city;
+        private final double price;
+        private final LocalDateTime arrival;
+        private final int legs;
+        private final double duration;
+        private final SimpleTrip trip;
+        private final Label parent;
+        private boolean dominated;
+
+        private Label(String city, double price, LocalDateTime arrival, int legs, double duration, SimpleTrip trip, Label parent) {
+            this.city = city;
+            this.price = price;
+            this.arrival = arrival;
+            this.legs = legs;
+            this.duration = duration;
+            this.trip = trip;
+            this.parent = parent;
+        }
+    }
+}
@@ -1,26 +1,49 @@
 package com.testlog.projet.optimize;
 
 import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.CityRegistry;
 import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.ITransportGraph;
 import com.testlog.projet.types.ComposedTrip;
 import com.testlog.projet.types.SimpleTrip;
 import com.testlog.projet.types.TransportationMode;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 public class TransportOptimizer implements ITransportOptimizer {
+    // Branches are only forked for the first legs of a trip, deeper ones are explored by the task that reached them
+    private static final int PARALLEL_DEPTH = 3;
+
     private final ICityService<SimpleTrip> transportService;
+    private final ForkJoinPool pool;
 
     public TransportOptimizer(ICityService<SimpleTrip> transportService) {
+        this(transportService, null);
+    }
+
+    /**
+     * @param pool pool exploring the branches of the search in parallel, or null to explore them one after the other
+     */
+    public TransportOptimizer(ICityService<SimpleTrip> transportService, ForkJoinPool pool) {
         this.transportService = transportService;
+        this.pool = pool;
     }
 
     @Override
     public ComposedTrip getOptimizedTrip(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        if (pool != null) {
+            return searchInParallel(origin, destination, date, transportCriteria, maxPrice);
+        }
+
         List<List<SimpleTrip>> allPaths = new ArrayList<>();
-        findAllPaths(origin, destination, date, transportCriteria, new ArrayList<>(), allPaths);
+        findAllPaths(origin, destination, date, transportCriteria, allPaths);
 
         List<SimpleTrip> optimalPath = null;
         double optimalValue = Double.MAX_VALUE;
@@ -45,6 +68,103 @@ public class TransportOptimizer implements ITransportOptimizer {
         return new ComposedTrip(optimalPath);
     }
 
+    /**
+     * Explores the same paths as the sequential search with one task per branch.
+     * The cost of the best trip found so far is shared by all tasks, which drop the branches that are already more expensive.
+     * Branches with the same cost are kept, and results are merged in depth-first order, so ties give the same trip.
+     * Like the sequential search, cities are followed by id through the transport graph when it knows both cities.
+     */
+    private ComposedTrip searchInParallel(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, double maxPrice) {
+        AtomicLong bound = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+        Search search = new Search(network(origin, destination), transportCriteria, maxPrice, bound);
+        Candidate best = pool.invoke(new PathSearch(search, search.network().origin(), date, new ArrayList<>()));
+
+        if (best == null) {
+            throw new IllegalArgumentException("No trips available within the budget");
+        }
+
+        return new ComposedTrip(best.path());
+    }
+
+    @Override
+    public List<ComposedTrip> getParetoTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        List<List<SimpleTrip>> allPaths = new ArrayList<>();
+        findAllPaths(origin, destination, date, transportCriteria, allPaths);
+
+        List<ComposedTrip> front = new ArrayList<>();
+        for (List<SimpleTrip> path : allPaths) {
+            ComposedTrip trip = new ComposedTrip(path);
+            if (trip.getPrice() > maxPrice) continue;
+            if (front.stream().anyMatch(other -> dominates(other, trip, date, transportCriteria))) continue;
+
+            front.removeIf(other -> dominates(trip, other, date, transportCriteria));
+            front.add(trip);
+        }
+
+        front.sort(Comparator.comparingDouble(ComposedTrip::getPrice)
+                .thenComparing(trip -> arrivalTime(trip, date))
+                .thenComparingInt(trip -> trip.getTrips().size()));
+        return front;
+    }
+
+    @Override
+    public Stream<ComposedTrip> getRankedTrips(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, Double maxPrice) {
+        return KShortestTrips.stream(transportService, origin, destination, date, transportCriteria, maxPrice);
+    }
+
+    /**
+     * Returns true if 'a' is not worse than 'b' on price, arrival time and number of legs,
+     * and on time spent in transports when durations are preferred.
+     */
+    private boolean dominates(ComposedTrip a, ComposedTrip b, LocalDateTime date, TransportCriteria transportCriteria) {
+        return a.getPrice() <= b.getPrice()
+                && !arrivalTime(a, date).isAfter(arrivalTime(b, date))
+                && a.getTrips().size() <= b.getTrips().size()
+                && (transportCriteria.preferMinPricesOverMinDuration()
+                || a.getTrips().stream().mapToDouble(this::calculateDuration).sum() <= b.getTrips().stream().mapToDouble(this::calculateDuration).sum());
+    }
+
+    /**
+     * Arrival time of a trip, an empty trip (origin equals destination) arrives as soon as it departs.
+     */
+    private LocalDateTime arrivalTime(ComposedTrip trip, LocalDateTime date) {
+        return trip.getTrips().isEmpty() ? date : trip.getArrivalTime();
+    }
+
+    /**
+     * Same search by city id when the service is a transport graph and knows both cities:
+     * cities are compared as ints and the timetables are read from arrays.
+     */
+    private void findAllPaths(String origin, String destination, LocalDateTime date, TransportCriteria transportCriteria, List<List<SimpleTrip>> allPaths) {
+        if (transportService instanceof ITransportGraph graph) {
+            int from = graph.getCities().find(origin);
+            int to = graph.getCities().find(destination);
+            if (from >= 0 && to >= 0) {
+                findAllPaths(graph, from, to, date, transportCriteria, new ArrayList<>(), allPaths);
+                return;
+            }
+        }
+        findAllPaths(origin, destination, date, transportCriteria, new ArrayList<>(), allPaths);
+    }
+
+    private void findAllPaths(ITransportGraph graph, int currentCity, int destination, LocalDateTime date, TransportCriteria transportCriteria, List<SimpleTrip> currentPath, List<List<SimpleTrip>> allPaths) {
+        if (currentCity == destination) {
+            allPaths.add(new ArrayList<>(currentPath));
+            return;
+        }
+        ITransportGraph.Departures departures = graph.getDepartures(currentCity, date);
+        List<SimpleTrip> trips = departures.trips();
+        int[] arrivals = departures.arrivalCities();
+        TransportationMode mode = transportCriteria.preferredMode();
+        for (int i = 0; i < trips.size(); i++) {
+            SimpleTrip trip = trips.get(i);
+            if (mode != TransportationMode.NOT_SPECIFIED && trip.mode() != mode) continue;
+            currentPath.add(trip);
+            findAllPaths(graph, arrivals[i], destination, trip.arrivalTime(), transportCriteria, currentPath, allPaths);
+            currentPath.removeLast();
+        }
+    }
+
     private void findAllPaths(String currentCity, String destination, LocalDateTime date, TransportCriteria transportCriteria, List<SimpleTrip> currentPath, List<List<SimpleTrip>> allPaths) {
         if (currentCity.equals(destination)) {
             allPaths.add(new ArrayList<>(currentPath));
@@ -57,8 +177,18 @@ public class TransportOptimizer implements ITransportOptimizer {
         }
     }
 
+    private double cost(List<SimpleTrip> path, TransportCriteria transportCriteria) {
+        if (transportCriteria.preferMinPricesOverMinDuration()) {
+            return path.stream().mapToDouble(SimpleTrip::price).sum();
+        }
+        return path.stream().mapToDouble(this::calculateDuration).sum();
+    }
+
+    /**
+     * Minutes spent in a trip. A trip arriving before it departs takes no time, so that costs never decrease along a path.
+     */
     private double calculateDuration(SimpleTrip trip) {
-        return (double) java.time.Duration.between(trip.departureTime(), trip.arrivalTime()).toMinutes();
+        return Math.max(0, java.time.Duration.between(trip.departureTime(), trip.arrivalTime()).toMinutes());
     }
 
     private List<SimpleTrip> filterTransportCriteria(List<SimpleTrip> trips, TransportCriteria transportCriteria) {
@@ -69,4 +199,145 @@ public class TransportOptimizer implements ITransportOptimizer {
                 .filter(trip -> trip.mode() == transportCriteria.preferredMode())
                 .toList();
     }
-}
\ No newline at end of file
+
+    /**
+     * Ids of the origin and destination, and the departures of each city by id: the ones of the transport graph,
+     * or ids given to the city names during the search when the service only knows names.
+     */
+    private Network network(String origin, String destination) {
+        if (transportService instanceof ITransportGraph graph) {
+            int from = graph.getCities().find(origin);
+            int to = graph.getCities().find(destination);
+            if (from >= 0 && to >= 0) {
+                return new Network(from, to, graph::getDepartures);
+            }
+        }
+
+        CityRegistry cities = new CityRegistry();
+        return new Network(cities.register(origin), cities.register(destination), (city, date) -> {
+            List<SimpleTrip> trips = transportService.getForCity(cities.name(city), date);
+            int[] arrivals = new int[trips.size()];
+            for (int i = 0; i < arrivals.length; i++) {
+                arrivals[i] = cities.register(trips.get(i).arrivalCity());
+            }
+            return new ITransportGraph.Departures(trips, arrivals);
+        });
+    }
+
+    private record Candidate(List<SimpleTrip> path, double cost) {
+    }
+
+    @FunctionalInterface
+    private interface Departures {
+        ITransportGraph.Departures of(int city, LocalDateTime date);
+    }
+
+    private record Network(int origin, int destination, Departures departures) {
+    }
+
+    /**
+     * State shared by all the tasks of a parallel search.
+     */
+    private record Search(Network network, TransportCriteria transportCriteria, double maxPrice, AtomicLong bound) {
+    }
+
+    // Tasks are only run by the pool, never serialized
+    @SuppressWarnings("serial")
+    private class PathSearch extends RecursiveTask<Candidate> {
+        private final Search search;
+        private final int currentCity;
+        private final LocalDateTime date;
+        private final List<SimpleTrip> currentPath;
+
+        private PathSearch(Search search, int currentCity, LocalDateTime date, List<SimpleTrip> currentPath) {
+            this.search = search;
+            this.currentCity = currentCity;
+            this.date = date;
+            this.currentPath = currentPath;
+        }
+
+        @Override
+        protected Candidate compute() {
+            if (currentPath.size() < PARALLEL_DEPTH) {
+                return split();
+            }
+            return explore(currentCity, date, currentPath);
+        }
+
+        private Candidate split() {
+            if (currentCity == search.network().destination()) {
+                return leaf(currentPath);
+            }
+
+            ITransportGraph.Departures departures = search.network().departures().of(currentCity, date);
+            List<SimpleTrip> trips = departures.trips();
+            List<PathSearch> tasks = new ArrayList<>();
+            for (int i = 0; i < trips.size(); i++) {
+                SimpleTrip trip = trips.get(i);
+                if (!isAllowed(trip)) continue;
+                List<SimpleTrip> path = new ArrayList<>(currentPath);
+                path.add(trip);
+                if (isPruned(path)) continue;
+                tasks.add(new PathSearch(search, departures.arrivalCities()[i], trip.arrivalTime(), path));
+            }
+
+            Candidate best = null;
+            for (PathSearch task : invokeAll(tasks)) {
+                best = better(best, task.join());
+            }
+            return best;
+        }
+
+        private Candidate explore(int city, LocalDateTime time, List<SimpleTrip> path) {
+            if (city == search.network().destination()) {
+                return leaf(path);
+            }
+
+            ITransportGraph.Departures departures = search.network().departures().of(city, time);
+            List<SimpleTrip> trips = departures.trips();
+            Candidate best = null;
+            for (int i = 0; i < trips.size(); i++) {
+                SimpleTrip trip = trips.get(i);
+                if (!isAllowed(trip)) continue;
+                path.add(trip);
+                if (!isPruned(path)) {
+                    best = better(best, explore(departures.arrivalCities()[i], trip.arrivalTime(), path));
+                }
+                path.removeLast();
+            }
+            return best;
+        }
+
+        private boolean isAllowed(SimpleTrip trip) {
+            TransportationMode mode = search.transportCriteria().preferredMode();
+            return mode == TransportationMode.NOT_SPECIFIED || trip.mode() == mode;
+        }
+
+        private Candidate leaf(List<SimpleTrip> path) {
+            double price = path.stream().mapToDouble(SimpleTrip::price).sum();
+            if (price > search.maxPrice()) return null;
+
+            double cost = cost(path, search.transportCriteria());
+            search.bound().accumulateAndGet(Double.doubleToLongBits(cost), (a, b) -> Double.longBitsToDouble(a) <= Double.longBitsToDouble(b) ? a : b);
+            return new Candidate(new ArrayList<>(path), cost);
+        }
+
+        /**
+         * A branch is dropped if it is already over budget or strictly more expensive than the best trip found so far.
+         * Durations are never negative and prices are assumed not to be, so the cost of a branch can only grow.
+         */
+        private boolean isPruned(List<SimpleTrip> path) {
+            if (path.stream().mapToDouble(SimpleTrip::price).sum() > search.maxPrice()) return true;
+            return cost(path, search.transportCriteria()) > Double.longBitsToDouble(search.bound().get());
+        }
+
+        /**
+         * Keeps the first candidate on equal costs, 'current' always comes first in depth-first order.
+         */
+        private Candidate better(Candidate current, Candidate other) {
+            if (other == null) return current;
+            if (current == null || other.cost() < current.cost()) return other;
+            return current;
+        }
+    }
+}
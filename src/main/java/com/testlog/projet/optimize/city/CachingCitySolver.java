@@ -0,0 +1,182 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.services.CacheStats;
+import com.testlog.projet.types.Activity;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caching decorator for any city solver.
+ * Plans are cached by set of activities (whatever their order), day of the week of the start, number of days and budget,
+ * so hotels with the same nearby activities, and later requests for the same city and week, share their solves.
+ * A plan found with one budget is also reused for another budget when it is still optimal:
+ * - with a lower budget, as long as the plan fits in it (fewer plans are possible, and this one is still among them)
+ * - with a higher budget, if the plan fits and cannot have more activities (every day, or every activity, is taken),
+ * since a cheaper plan with as many activities would already have been found with the first budget.
+ * Entries are evicted when the cache is full (least recently used first), and only a few budgets are kept per entry.
+ * Plans found before a deadline that may not be optimal are not cached. The returned lists cannot be modified.
+ */
+public class CachingCitySolver implements ICitySolver {
+    static final int BUDGETS_PER_ENTRY = 8;
+
+    private final ICitySolver citySolver;
+    private final int maxSize;
+    private final Map<Key, Deque<Plan>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param citySolver solver to cache
+     * @param maxSize    maximum number of (activities, start day, number of days) entries kept
+     */
+    public CachingCitySolver(ICitySolver citySolver, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        this.citySolver = citySolver;
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Deque<Plan>> eldest) {
+                if (size() > CachingCitySolver.this.maxSize) {
+                    evictions.addAndGet(eldest.getValue().size());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public List<Activity> solve(List<Activity> activities, int startDay, int nbDays, double budget) {
+        Key key = Key.of(activities, startDay, nbDays);
+        List<Activity> cached = lookup(key, budget);
+        if (cached != null) return cached;
+
+        return store(key, activities, budget, citySolver.solve(activities, startDay, nbDays, budget));
+    }
+
+    /**
+     * Not cached: the plans depend on the limit, and this is only asked once per hotel.
+     */
+    @Override
+    public List<List<Activity>> solveAll(List<Activity> activities, int startDay, int nbDays, double budget, int limit) {
+        return citySolver.solveAll(activities, startDay, nbDays, budget, limit);
+    }
+
+    /**
+     * The session of the wrapped solver is only opened at the first solve that misses the cache.
+     */
+    @Override
+    public ICitySolverSession openSession(List<Activity> activities, int startDay, int nbDays) {
+        return new ICitySolverSession() {
+            private ICitySolverSession session;
+
+            @Override
+            public List<Activity> solve(List<Activity> selectable, double budget) {
+                return solve(selectable, budget, null).activities();
+            }
+
+            @Override
+            public CitySolution solve(List<Activity> selectable, double budget, Instant deadline) {
+                Key key = Key.of(selectable, startDay, nbDays);
+                List<Activity> cached = lookup(key, budget);
+                if (cached != null) return new CitySolution(cached, true);
+
+                CitySolution solution = session().solve(selectable, budget, deadline);
+                if (!solution.optimal()) return solution;
+                return new CitySolution(store(key, selectable, budget, solution.activities()), true);
+            }
+
+            @Override
+            public List<List<Activity>> solveAll(List<Activity> selectable, double budget, int limit) {
+                return session().solveAll(selectable, budget, limit);
+            }
+
+            private ICitySolverSession session() {
+                if (session == null) {
+                    session = citySolver.openSession(activities, startDay, nbDays);
+                }
+                return session;
+            }
+
+            @Override
+            public void close() {
+                if (session != null) session.close();
+            }
+        };
+    }
+
+    /**
+     * Drop every entry, for instance after the activities were reloaded.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get());
+    }
+
+    /**
+     * Returns a cached plan that is optimal for the budget, or null.
+     */
+    private List<Activity> lookup(Key key, double budget) {
+        synchronized (entries) {
+            Deque<Plan> plans = entries.get(key);
+            if (plans != null) {
+                for (Plan plan : plans) {
+                    if (plan.price() <= budget && (budget <= plan.budget() || plan.full())) {
+                        hits.incrementAndGet();
+                        return plan.activities();
+                    }
+                }
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+    }
+
+    private List<Activity> store(Key key, List<Activity> activities, double budget, List<Activity> solution) {
+        List<Activity> planned = Collections.unmodifiableList(new ArrayList<>(solution));
+        double price = 0;
+        int count = 0;
+        for (Activity activity : planned) {
+            if (activity == null) continue;
+            price += activity.price();
+            count++;
+        }
+        boolean full = count == Math.min(key.nbDays(), activities.size());
+
+        synchronized (entries) {
+            Deque<Plan> plans = entries.computeIfAbsent(key, k -> new ArrayDeque<>());
+            plans.addFirst(new Plan(planned, budget, price, full));
+            if (plans.size() > BUDGETS_PER_ENTRY) {
+                plans.removeLast();
+                evictions.incrementAndGet();
+            }
+        }
+        return planned;
+    }
+
+    /**
+     * Only the day of the week of the start matters, since the plans are indexed by days since the start.
+     */
+    private record Key(Set<Activity> activities, int weekday, int nbDays) {
+        static Key of(List<Activity> activities, int startDay, int nbDays) {
+            return new Key(Set.copyOf(activities), startDay % 7, nbDays);
+        }
+    }
+
+    /**
+     * A plan, the budget it was found with and its price.
+     */
+    private record Plan(List<Activity> activities, double budget, double price, boolean full) {
+    }
+}
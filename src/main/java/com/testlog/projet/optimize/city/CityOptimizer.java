@@ -1,26 +1,72 @@
 package com.testlog.projet.optimize.city;
 
 import com.testlog.projet.criteria.CityCriteria;
+import com.testlog.projet.services.ActivityFilter;
+import com.testlog.projet.services.CoordinateBuffer;
+import com.testlog.projet.services.DistanceKernels;
 import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.IActivityService;
+import com.testlog.projet.services.IDistanceKernel;
+import com.testlog.projet.services.ISpatialCityService;
 import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
 import com.testlog.projet.types.Hotel;
-import com.testlog.projet.types.LatLng;
 import com.testlog.projet.types.Pair;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.EnumSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 public class CityOptimizer implements ICityOptimizer {
 
     private final ICityService<Hotel> hotelService;
     private final ICityService<Activity> activityService;
     private final ICitySolver citySolver;
+    private final Duration timeBudget;
+    private final int threads;
+    private final AtomicLong avoidedSolves = new AtomicLong();
+    private final IDistanceKernel distanceKernel = DistanceKernels.best();
 
     public CityOptimizer(ICityService<Hotel> hotelService, ICityService<Activity> activityService, ICitySolver citySolver) {
+        this(hotelService, activityService, citySolver, null);
+    }
+
+    /**
+     * @param timeBudget time given to the solver for all the hotels of a request, or null to always wait for optimal solutions.
+     *                   Once it is spent, the remaining hotels are evaluated with the best activities found so far (possibly none).
+     */
+    public CityOptimizer(ICityService<Hotel> hotelService, ICityService<Activity> activityService, ICitySolver citySolver, Duration timeBudget) {
+        this(hotelService, activityService, citySolver, timeBudget, 1);
+    }
+
+    /**
+     * @param threads number of hotels evaluated at the same time, each thread with its own solver session.
+     *                The result does not depend on it.
+     */
+    public CityOptimizer(ICityService<Hotel> hotelService, ICityService<Activity> activityService, ICitySolver citySolver, Duration timeBudget, int threads) {
+        if (threads <= 0) {
+            throw new IllegalArgumentException("At least one thread is needed");
+        }
         this.hotelService = hotelService;
         this.activityService = activityService;
         this.citySolver = citySolver;
+        this.timeBudget = timeBudget;
+        this.threads = threads;
     }
 
     /**
@@ -33,13 +79,52 @@ public class CityOptimizer implements ICityOptimizer {
     }
 
     /**
-     * Remove activities that are too far away from the hotel or not in the right category.
+     * Categories of the criteria as a bit set, checked once per activity and hotel.
      */
-    private List<Activity> filterActivities(List<Activity> activities, CityCriteria criteria, LatLng hotelCoordinates) {
-        return activities.stream()
-                .filter((a) -> hotelCoordinates.distance(a.coordinates()) <= criteria.maxActivityDistance())
-                .filter((a) -> criteria.activityCategories().contains(a.type()))
+    private static Set<ActivityType> categories(CityCriteria criteria) {
+        Set<ActivityType> categories = EnumSet.noneOf(ActivityType.class);
+        categories.addAll(criteria.activityCategories());
+        return categories;
+    }
+
+    /**
+     * For each hotel, remove activities that are too far away from the hotel, not in the right category,
+     * closed during the whole stay or more expensive than what is left of the budget once the hotel is paid.
+     * If the activity service has a spatial index, only the activities around each hotel are looked at,
+     * and an IActivityService applies the filter on its own columns.
+     * Otherwise, the distances between all the hotels and activities are checked at once by the distance kernel.
+     */
+    private List<List<Activity>> filterActivities(String city, LocalDateTime date, List<Activity> activities, CityCriteria criteria,
+                                                  List<Hotel> hotels, int startDay, int nbDays, double budget) {
+        List<List<Activity>> nearActivities = new ArrayList<>(hotels.size());
+        Set<ActivityType> categories = categories(criteria);
+        if (activityService instanceof ISpatialCityService<Activity> spatialService) {
+            for (Hotel hotel : hotels) {
+                ActivityFilter filter = ActivityFilter.of(categories, startDay, nbDays, budget - hotel.price() * nbDays);
+                if (spatialService instanceof IActivityService service) {
+                    nearActivities.add(service.getWithin(city, date, hotel.coordinates(), criteria.maxActivityDistance(), filter));
+                } else {
+                    nearActivities.add(spatialService.getWithin(city, date, hotel.coordinates(), criteria.maxActivityDistance()).stream()
+                            .filter(filter::test)
+                            .toList());
+                }
+            }
+            return nearActivities;
+        }
+
+        List<Activity> candidates = activities.stream()
+                .filter(ActivityFilter.of(categories, startDay, nbDays, budget)::test)
                 .toList();
+        CoordinateBuffer coordinates = CoordinateBuffer.of(candidates.stream().map(Activity::coordinates).toList());
+        BitSet[] within = distanceKernel.within(hotels.stream().map(Hotel::coordinates).toList(), coordinates, criteria.maxActivityDistance());
+        for (int h = 0; h < hotels.size(); h++) {
+            double maxPrice = budget - hotels.get(h).price() * nbDays;
+            nearActivities.add(within[h].stream()
+                    .mapToObj(candidates::get)
+                    .filter((a) -> a.price() <= maxPrice)
+                    .toList());
+        }
+        return nearActivities;
     }
 
     /**
@@ -96,31 +181,254 @@ public class CityOptimizer implements ICityOptimizer {
         }
     }
 
+    /**
+     * Hotels are evaluated from the most promising one, according to an optimistic bound on their activities:
+     * the cheapest nearby activities that fit in the remaining budget, at most one per day.
+     * A hotel is not solved when even this bound is worse than the best hotel found so far.
+     */
     @Override
     public Pair<Hotel, List<Activity>> optimize(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date) {
-        List<Hotel> hotels = filterHotels(hotelService.getForCity(city, date), cityCriteria);
-        List<Activity> activities = activityService.getForCity(city, date);
+        return plan(city, startDay, nbDays, budget, cityCriteria, date).toPair();
+    }
 
-        Pair<Hotel, List<Activity>> optimal = null;
+    /**
+     * The plan is not optimal if the deadline stopped the solver on any hotel: that hotel may have had a better plan.
+     */
+    @Override
+    public CityPlan plan(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date) {
+        Evaluation evaluation = evaluate(city, startDay, nbDays, budget, cityCriteria, date,
+                (session, activities, activityBudget, deadline) -> List.of(session.solve(activities, activityBudget, deadline)));
 
-        for (Hotel hotel : hotels) {
-            List<Activity> nearActivities = filterActivities(activities, cityCriteria, hotel.coordinates());
+        // Reduced in the order of the hotels, so that the result does not depend on the evaluation order.
+        // Skipped hotels are strictly worse than another one, so they would never have been selected
+        Pair<Hotel, List<Activity>> optimal = null;
+        boolean allOptimal = true;
+        for (int h = 0; h < evaluation.solutions().length(); h++) {
+            List<CitySolution> solutions = evaluation.solutions().get(h);
+            if (solutions == null) continue;
+            CitySolution solution = solutions.getFirst();
+            allOptimal &= solution.optimal();
+            Pair<Hotel, List<Activity>> pair = new Pair<>(evaluation.hotels().get(h), solution.activities());
+            if (compare(pair, optimal, cityCriteria, nbDays)) {
+                optimal = pair;
+            }
+        }
+        if (optimal == null) {
+            throw new IllegalArgumentException("No solution found : no hotel available within the budget");
+        }
+        return new CityPlan(optimal.first(), optimal.second(), allOptimal);
+    }
 
-            // Check if hotel is in budget
-            double hotelPrice = hotel.price() * nbDays;
-            if (hotelPrice > budget) continue;
+    /**
+     * Same evaluation as optimize (threads, deadline and skipped hotels), asking the solver for all the best plans
+     * of each hotel. Hotels whose bound can still tie with the best one are solved.
+     */
+    @Override
+    public List<Pair<Hotel, List<Activity>>> optimizeAll(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date, int limit) {
+        return planAll(city, startDay, nbDays, budget, cityCriteria, date, limit).stream()
+                .map(CityPlan::toPair)
+                .toList();
+    }
 
-            // The following object can contain null multiple times
-            // meaning no activity planned for the given date
-            List<Activity> solution = citySolver.solve(nearActivities, startDay, nbDays, budget - hotel.price() * nbDays);
+    /**
+     * Enumerating plans has no deadline: once the time budget is spent, the remaining hotels only get
+     * the plan a session finds before the deadline (no activity), flagged as not optimal.
+     */
+    @Override
+    public List<CityPlan> planAll(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date, int limit) {
+        Evaluation evaluation = evaluate(city, startDay, nbDays, budget, cityCriteria, date, (session, activities, activityBudget, deadline) -> {
+            if (deadline != null && !Instant.now().isBefore(deadline)) {
+                return List.of(session.solve(activities, activityBudget, deadline));
+            }
+            // Through the session, which already holds the solver of this thread
+            return session.solveAll(activities, activityBudget, limit).stream()
+                    .map(plan -> new CitySolution(plan, true))
+                    .toList();
+        });
 
-            if (compare(new Pair<>(hotel, solution), optimal, cityCriteria, nbDays)) {
-                optimal = new Pair<>(hotel, solution);
+        Pair<Hotel, List<Activity>> best = null;
+        List<Pair<Hotel, List<Activity>>> optimal = new ArrayList<>();
+        boolean allOptimal = true;
+        for (int h = 0; h < evaluation.solutions().length(); h++) {
+            List<CitySolution> solutions = evaluation.solutions().get(h);
+            if (solutions == null) continue;
+            for (CitySolution solution : solutions) {
+                allOptimal &= solution.optimal();
+                Pair<Hotel, List<Activity>> candidate = new Pair<>(evaluation.hotels().get(h), solution.activities());
+                if (best == null || !compare(best, candidate, cityCriteria, nbDays)) {
+                    // Strictly better than the current best ones
+                    best = candidate;
+                    optimal.clear();
+                    if (limit > 0) optimal.add(candidate);
+                } else if (compare(candidate, best, cityCriteria, nbDays) && optimal.size() < limit) {
+                    optimal.add(candidate);
+                }
             }
         }
-        if (optimal == null) {
+        if (best == null) {
             throw new IllegalArgumentException("No solution found : no hotel available within the budget");
         }
-        return optimal;
+        boolean optimalPlans = allOptimal;
+        return optimal.stream()
+                .map(pair -> new CityPlan(pair.first(), pair.second(), optimalPlans))
+                .toList();
+    }
+
+    /**
+     * Filters the hotels and their activities, then solves the hotels from the most promising one with the planner,
+     * sequentially or on several threads.
+     */
+    private Evaluation evaluate(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date, Planner planner) {
+        List<Activity> activities = activityService.getForCity(city, date);
+
+        // Check if hotels are in budget
+        List<Hotel> hotels = filterHotels(hotelService.getForCity(city, date), cityCriteria).stream()
+                .filter((h) -> h.price() * nbDays <= budget)
+                .toList();
+
+        List<List<Activity>> nearActivities = filterActivities(city, date, activities, cityCriteria, hotels, startDay, nbDays, budget);
+        List<Candidate> order = new ArrayList<>(hotels.size());
+        for (int h = 0; h < hotels.size(); h++) {
+            Hotel hotel = hotels.get(h);
+            List<Activity> near = nearActivities.get(h);
+            order.add(new Candidate(h, hotel, near, new Pair<>(hotel, cheapestActivities(near, nbDays, budget - hotel.price() * nbDays))));
+        }
+        order.sort(promising(cityCriteria));
+
+        Instant deadline = timeBudget == null ? null : Instant.now().plus(timeBudget);
+
+        // Only the distance to the hotel changes between hotels, so the solver is prepared once for the activities
+        // of the right categories that are open during the stay and fit in the budget
+        ActivityFilter filter = ActivityFilter.of(categories(cityCriteria), startDay, nbDays, budget);
+        List<Activity> candidates = activities.stream()
+                .filter(filter::test)
+                .toList();
+
+        // The activities of the plans can contain null multiple times, meaning no activity planned for the given date.
+        // Hotels that were not solved have no solutions
+        Evaluation evaluation = new Evaluation(hotels, order, planner, cityCriteria, nbDays, budget, deadline);
+        if (threads == 1 || hotels.size() <= 1) {
+            evaluate(evaluation, candidates, startDay);
+        } else {
+            evaluateConcurrently(evaluation, candidates, startDay);
+        }
+        return evaluation;
+    }
+
+    /**
+     * Number of hotels that were not solved because their bound could not beat the best hotel found so far,
+     * since this optimizer was created.
+     */
+    public long getAvoidedSolves() {
+        return avoidedSolves.get();
+    }
+
+    /**
+     * Cheapest activities, at most one per day, that fit in the budget.
+     * No plan of the hotel has more activities, and a plan with as many activities costs at least as much.
+     */
+    private List<Activity> cheapestActivities(List<Activity> nearActivities, int nbDays, double budget) {
+        List<Activity> cheapest = new ArrayList<>();
+        double spent = 0;
+        for (Activity activity : nearActivities.stream().sorted(Comparator.comparingDouble(Activity::price)).limit(nbDays).toList()) {
+            if (spent + activity.price() > budget) break;
+            spent += activity.price();
+            cheapest.add(activity);
+        }
+        return cheapest;
+    }
+
+    /**
+     * Orders hotels by decreasing bound, then by the preferred hotel (cheapest or with the most stars).
+     */
+    private Comparator<Candidate> promising(CityCriteria criteria) {
+        Comparator<Candidate> byBound = Comparator.comparingInt((Candidate c) -> c.optimistic().second().size()).reversed();
+        Comparator<Candidate> byPrice = Comparator.comparingDouble((Candidate c) -> c.hotel().price());
+        Comparator<Candidate> byStars = Comparator.comparingInt((Candidate c) -> c.hotel().stars()).reversed();
+
+        return criteria.preferHotelWithMinPricesOverMaxStars()
+                ? byBound.thenComparing(byPrice).thenComparing(byStars)
+                : byBound.thenComparing(byStars).thenComparing(byPrice);
+    }
+
+    /**
+     * Solves the activities of each hotel, one after the other, with a single session.
+     */
+    private void evaluate(Evaluation evaluation, List<Activity> candidates, int startDay) {
+        try (ICitySolverSession session = citySolver.openSession(candidates, startDay, evaluation.nbDays())) {
+            evaluate(evaluation, session);
+        }
+    }
+
+    /**
+     * Solves the activities of each hotel on 'threads' virtual threads. Sessions are not thread-safe,
+     * so each thread opens its own and takes the next hotel to evaluate until there is none left.
+     */
+    private void evaluateConcurrently(Evaluation evaluation, List<Activity> candidates, int startDay) {
+        Runnable worker = () -> evaluate(evaluation, candidates, startDay);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletableFuture<?>[] workers = new CompletableFuture<?>[Math.min(threads, evaluation.order().size())];
+            for (int w = 0; w < workers.length; w++) {
+                workers[w] = CompletableFuture.runAsync(worker, executor);
+            }
+            CompletableFuture.allOf(workers).join();
+        } catch (CompletionException e) {
+            // Report the same exceptions as the sequential evaluation
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Takes the next hotel to evaluate until there is none left, and solves it unless its bound is worse than the incumbent.
+     */
+    private void evaluate(Evaluation evaluation, ICitySolverSession session) {
+        CityCriteria criteria = evaluation.criteria();
+        int nbDays = evaluation.nbDays();
+
+        for (int i = evaluation.next().getAndIncrement(); i < evaluation.order().size(); i = evaluation.next().getAndIncrement()) {
+            Candidate candidate = evaluation.order().get(i);
+            Pair<Hotel, List<Activity>> incumbent = evaluation.incumbent().get();
+            if (incumbent != null && !compare(candidate.optimistic(), incumbent, criteria, nbDays)) {
+                avoidedSolves.incrementAndGet();
+                continue;
+            }
+
+            Hotel hotel = candidate.hotel();
+            List<CitySolution> solutions = evaluation.planner().plan(session, candidate.nearActivities(), evaluation.budget() - hotel.price() * nbDays, evaluation.deadline());
+            evaluation.solutions().set(candidate.index(), solutions);
+
+            // The plans of a hotel are equally good, the first one is enough to update the incumbent
+            if (solutions.isEmpty()) continue;
+            Pair<Hotel, List<Activity>> pair = new Pair<>(hotel, solutions.getFirst().activities());
+            evaluation.incumbent().updateAndGet((best) -> compare(pair, best, criteria, nbDays) ? pair : best);
+        }
+    }
+
+    /**
+     * A hotel to evaluate, with its index in the list of hotels and its optimistic plan.
+     */
+    private record Candidate(int index, Hotel hotel, List<Activity> nearActivities, Pair<Hotel, List<Activity>> optimistic) {
+    }
+
+    /**
+     * Plans of a hotel: a single one for optimize, all the best ones for optimizeAll.
+     */
+    @FunctionalInterface
+    private interface Planner {
+        List<CitySolution> plan(ICitySolverSession session, List<Activity> activities, double budget, Instant deadline);
+    }
+
+    /**
+     * State shared by the threads evaluating the hotels of a request. Solutions are indexed like the hotels.
+     */
+    private record Evaluation(List<Hotel> hotels, List<Candidate> order, Planner planner, CityCriteria criteria, int nbDays, double budget,
+                              Instant deadline, AtomicReferenceArray<List<CitySolution>> solutions, AtomicInteger next,
+                              AtomicReference<Pair<Hotel, List<Activity>>> incumbent) {
+        private Evaluation(List<Hotel> hotels, List<Candidate> order, Planner planner, CityCriteria criteria, int nbDays, double budget, Instant deadline) {
+            this(hotels, order, planner, criteria, nbDays, budget, deadline, new AtomicReferenceArray<>(hotels.size()), new AtomicInteger(),
+                    new AtomicReference<>());
+        }
     }
 }
@@ -0,0 +1,25 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.Hotel;
+import com.testlog.projet.types.Pair;
+
+import java.util.List;
+
+/**
+ * Hotel and activities selected for a stay, the activities indexed by days since the start day (null if no activity is planned).
+ *
+ * @param optimal false if the solver was stopped by the deadline on at least one hotel, in which case a better stay may exist
+ */
+public record CityPlan(Hotel hotel, List<Activity> activities, boolean optimal) {
+    /**
+     * A stay found without any deadline.
+     */
+    public static CityPlan optimal(Pair<Hotel, List<Activity>> pair) {
+        return new CityPlan(pair.first(), pair.second(), true);
+    }
+
+    public Pair<Hotel, List<Activity>> toPair() {
+        return new Pair<>(hotel, activities);
+    }
+}
@@ -0,0 +1,13 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.types.Activity;
+
+import java.util.List;
+
+/**
+ * Activities selected by a solver, indexed by days since the start day (null if no activity is planned).
+ *
+ * @param optimal false if the solver was stopped by its deadline, in which case the activities are only the best found so far
+ */
+public record CitySolution(List<Activity> activities, boolean optimal) {
+}
@@ -6,9 +6,14 @@ import com.google.ortools.linearsolver.MPObjective;
 import com.google.ortools.linearsolver.MPSolver;
 import com.google.ortools.linearsolver.MPVariable;
 import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.Availability;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 public class CitySolver implements ICitySolver {
     static {
@@ -17,8 +22,21 @@ public class CitySolver implements ICitySolver {
     // List<Hotel> not in the LP solver because it would introduce too many variables
     // It is possible to just solve for each hotel available in the given city
 
-    // NOTE: The specification asks to return all optimal packages, but the code only returns the best one
-    // This is because we consider it too unlikely to have multiple optimal solutions based on prices
+    // NOTE: The specification asks to return all optimal packages, but this solver only returns the best one
+    // CpSatCitySolver.solveAll enumerates all of them in a single search
+
+    private final SolverPool pool;
+
+    public CitySolver() {
+        this(null);
+    }
+
+    /**
+     * @param pool pool lending the native solvers, or null to create and delete a solver for each session
+     */
+    public CitySolver(SolverPool pool) {
+        this.pool = pool;
+    }
 
     /**
      * Solves the problem of selecting activities for a given number of days.
@@ -32,92 +50,205 @@ public class CitySolver implements ICitySolver {
      * If the problem cannot be solved, a list of null is returned.
      */
     public List<Activity> solve(List<Activity> activities, int startDay, int nbDays, double budget) {
-        MPSolver solver = MPSolver.createSolver("CBC");
-        int activityCount = activities.size();
+        try (ICitySolverSession session = openSession(activities, startDay, nbDays)) {
+            return session.solve(activities, budget);
+        }
+    }
+
+    /**
+     * Builds the model once over all the activities. Each solve only changes the upper bounds of the variables
+     * (0 for the activities that cannot be selected) and the budget, and starts from the previous solution.
+     * Availabilities repeat every week, so the days of the trip are grouped by day of the week:
+     * there is one variable per (day of the week, activity), and each day of the week can hold as many activities
+     * as it appears in the trip. The model size does not depend on the length of the trip beyond a week.
+     */
+    @Override
+    public ICitySolverSession openSession(List<Activity> activities, int startDay, int nbDays) {
+        return new Session(activities, startDay, nbDays, pool);
+    }
+
+    private static class Session implements ICitySolverSession {
+        private final List<Activity> activities;
+        private final int nbDays;
+        // Day of the week of each class, in the order of the trip
+        private final int[] weekdays;
+        private final Map<Activity, Integer> indexes = new IdentityHashMap<>();
+        // Days of the week when each activity is available (bit d for day d)
+        private final byte[] availability;
+        private final SolverPool pool;
+        private final MPSolver solver;
+        private final MPVariable[][] vars;
+        private final MPVariable[] allVars;
+        private final MPConstraint budgetConstraint;
+        // Values of the variables in the previous solution, used as a hint for the next solve
+        private double[] previousValues;
+
+        private Session(List<Activity> activities, int startDay, int nbDays, SolverPool pool) {
+            this.activities = activities;
+            this.nbDays = nbDays;
+            this.pool = pool;
+            this.solver = pool == null ? MPSolver.createSolver("CBC") : pool.acquire();
+            // Nobody can close a session that failed to build its model, so its solver is released here
+            try {
+                int activityCount = activities.size();
+
+                availability = new byte[activityCount];
+                for (int a = 0; a < activityCount; a++) {
+                    indexes.putIfAbsent(activities.get(a), a);
+                    availability[a] = Availability.mask(activities.get(a).availability());
+                }
+
+                // Day d of the trip belongs to class d % 7
+                int classCount = Math.min(nbDays, 7);
+                weekdays = new int[classCount];
+                int[] dayCounts = new int[classCount];
+                for (int d = 0; d < nbDays; d++) {
+                    weekdays[d % 7] = (startDay + d) % 7;
+                    dayCounts[d % 7]++;
+                }
+
+                vars = new MPVariable[classCount][activityCount];
+                allVars = new MPVariable[classCount * activityCount];
+                for (int c = 0; c < classCount; c++) {
+                    for (int a = 0; a < activityCount; a++) {
+                        vars[c][a] = solver.makeBoolVar("weekday_" + weekdays[c] + "_activity_" + a);
+                        allVars[c * activityCount + a] = vars[c][a];
+                    }
+                }
+
+                // Cannot have more than one activity on the same day, i.e. more activities on a day of the week than its occurrences
+                for (int c = 0; c < classCount; c++) {
+                    MPConstraint constraint = solver.makeConstraint(0, dayCounts[c]);
+                    for (int a = 0; a < activityCount; a++) {
+                        constraint.setCoefficient(vars[c][a], 1);
+                    }
+                }
+
+                // Same activity cannot be selected on two different days
+                for (int a = 0; a < activityCount; a++) {
+                    MPConstraint constraint = solver.makeConstraint(0, 1);
+                    for (int c = 0; c < classCount; c++) {
+                        constraint.setCoefficient(vars[c][a], 1);
+                    }
+                }
 
-        List<Activity> solution = new ArrayList<>(nbDays);
-        for (int i = 0; i < nbDays; i++) {
-            solution.add(null);
+                // sum_c(vars[c][a]) is whether or not we want to do activity 'a' on any day of the trip (0 or 1)
+                // sum_c(price_a * vars[c][a]) is trivially the price of activity 'a' if we want to do it, otherwise 0
+                // sum_c(sum_a(price_a * vars[c][a])) is the total price of all activities we want to do (should be < budget)
+                // The upper bound is set by each solve
+                budgetConstraint = solver.makeConstraint(0, 0);
+                for (int a = 0; a < activityCount; a++) { // sum_a
+                    double price = activities.get(a).price();
+                    for (int c = 0; c < classCount; c++) { // sum_c
+                        // price_a * vars[c][a]
+                        budgetConstraint.setCoefficient(vars[c][a], price);
+                    }
+                }
+
+                // Maximization of the number of activities, trivially sum_a(sum_c(vars[c][a]))
+                MPObjective objective = solver.objective();
+                for (int a = 0; a < activityCount; a++) {
+                    for (int c = 0; c < classCount; c++) {
+                        objective.setCoefficient(vars[c][a], 1);
+                    }
+                }
+                objective.setMaximization();
+            } catch (RuntimeException e) {
+                close();
+                throw e;
+            }
         }
 
-        if (budget <= 0) {
-            return solution;
+        @Override
+        public List<Activity> solve(List<Activity> selectable, double budget) {
+            return solve(selectable, budget, null).activities();
         }
 
-        MPVariable[][] vars = new MPVariable[nbDays][activityCount];
-        for (int d = 0; d < nbDays; d++) {
-            for (int a = 0; a < activityCount; a++) {
-                vars[d][a] = solver.makeBoolVar("day_" + d + "_activity_" + a);
+        @Override
+        public CitySolution solve(List<Activity> selectable, double budget, Instant deadline) {
+            List<Activity> solution = new ArrayList<>(nbDays);
+            for (int i = 0; i < nbDays; i++) {
+                solution.add(null);
             }
-        }
 
-        // If the activity is not available on a given day, force it to 0 in the model
-        for (int a = 0; a < activityCount; a++) {
-            List<Boolean> availability = activities.get(a).availability();
-            for (int d = 0; d < nbDays; d++) {
-                if (!availability.get((startDay + d) % 7)) {
-                    // Setting the coefficient to 0 to make sure the activity cannot be selected
-                    MPConstraint constraint = solver.makeConstraint(0, 0);
-                    constraint.setCoefficient(vars[d][a], 1);
-                }
+            if (budget <= 0) {
+                return new CitySolution(solution, true);
             }
-        }
 
-        // Cannot have more than one activity on the same day
-        for (int d = 0; d < nbDays; d++) {
-            MPConstraint constraint = solver.makeConstraint(0, 1);
-            for (int a = 0; a < activityCount; a++) {
-                constraint.setCoefficient(vars[d][a], 1);
+            boolean[] enabled = new boolean[activities.size()];
+            for (Activity activity : selectable) {
+                Integer index = indexes.get(activity);
+                if (index == null) {
+                    throw new IllegalArgumentException("Activity not in the session: " + activity.name());
+                }
+                enabled[index] = true;
             }
-        }
 
-        // Same activity cannot be selected on two different days
-        for (int a = 0; a < activityCount; a++) {
-            MPConstraint constraint = solver.makeConstraint(0, 1);
-            for (int d = 0; d < nbDays; d++) {
-                constraint.setCoefficient(vars[d][a], 1);
+            // If the activity cannot be selected or is not available on a given day of the week, force it to 0 in the model
+            for (int a = 0; a < activities.size(); a++) {
+                for (int c = 0; c < weekdays.length; c++) {
+                    vars[c][a].setUb(enabled[a] && (availability[a] >> weekdays[c] & 1) != 0 ? 1 : 0);
+                }
             }
-        }
+            budgetConstraint.setUb(budget);
 
-        // sum_d(vars[d][a]) is whether or not we want to do activity 'a' on any day of the trip (0 or 1)
-        // sum_d(price_a * vars[d][a]) is trivially the price of activity 'a' if we want to do it, otherwise 0
-        // sum_d(sum_a(price_a * vars[d][a])) is the total price of all activities we want to do (should be < budget)
-        MPConstraint budgetConstraint = solver.makeConstraint(0, budget);
-        for (int a = 0; a < activityCount; a++) { // sum_a
-            double price = activities.get(a).price();
-            for (int d = 0; d < nbDays; d++) { // sum_d
-                // price_a * vars[d][a]
-                budgetConstraint.setCoefficient(vars[d][a], price);
+            if (previousValues != null) {
+                double[] hint = new double[allVars.length];
+                for (int i = 0; i < allVars.length; i++) {
+                    hint[i] = Math.min(previousValues[i], allVars[i].ub());
+                }
+                solver.setHint(allVars, hint);
             }
-        }
 
-        // Maximization of the number of activities, trivially sum_a(sum_d(vars[d][a]))
-        MPObjective objective = solver.objective();
-        for (int a = 0; a < activityCount; a++) {
-            for (int d = 0; d < nbDays; d++) {
-                objective.setCoefficient(vars[d][a], 1);
+            // A limit of 0 removes the limit set by a previous solve
+            long timeLimit = 0;
+            if (deadline != null) {
+                timeLimit = Duration.between(Instant.now(), deadline).toMillis();
+                if (timeLimit <= 0) {
+                    // Selecting no activity is always feasible
+                    return new CitySolution(solution, false);
+                }
             }
-        }
-        objective.setMaximization();
+            solver.setTimeLimit(timeLimit);
 
-        final MPSolver.ResultStatus resultStatus = solver.solve();
+            final MPSolver.ResultStatus resultStatus = solver.solve();
 
-        if (resultStatus != MPSolver.ResultStatus.OPTIMAL) {
-            // The problem always has a solution, so this should never happen
-            // In fact, a (bad) solution could be to select no activity at all
-            throw new IllegalStateException("The problem cannot be solved.");
-        }
+            if (deadline != null && resultStatus == MPSolver.ResultStatus.NOT_SOLVED) {
+                // Stopped before finding any solution
+                return new CitySolution(solution, false);
+            }
+            if (resultStatus != MPSolver.ResultStatus.OPTIMAL && (deadline == null || resultStatus != MPSolver.ResultStatus.FEASIBLE)) {
+                // The problem always has a solution, so this should never happen
+                // In fact, a (bad) solution could be to select no activity at all
+                throw new IllegalStateException("The problem cannot be solved.");
+            }
 
-        // Parse the optimal solution to find the selected activities
-        for (int d = 0; d < nbDays; d++) {
-            for (int a = 0; a < activityCount; a++) {
-                if (vars[d][a].solutionValue() == 1) {
-                    solution.set(d, activities.get(a));
-                    break;
+            previousValues = new double[allVars.length];
+            for (int i = 0; i < allVars.length; i++) {
+                previousValues[i] = allVars[i].solutionValue();
+            }
+
+            // Parse the solution: the activities of a class go to its days in order
+            for (int c = 0; c < weekdays.length; c++) {
+                int day = c;
+                for (int a = 0; a < activities.size(); a++) {
+                    if (vars[c][a].solutionValue() == 1) {
+                        solution.set(day, activities.get(a));
+                        day += 7;
+                    }
                 }
             }
+
+            return new CitySolution(solution, resultStatus == MPSolver.ResultStatus.OPTIMAL);
         }
 
-        return solution;
+        @Override
+        public void close() {
+            if (pool == null) {
+                solver.delete();
+            } else {
+                pool.release(solver);
+            }
+        }
     }
 }
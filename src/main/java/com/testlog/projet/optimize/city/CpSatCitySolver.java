@@ -0,0 +1,395 @@
+package com.testlog.projet.optimize.city;
+
+import com.google.ortools.Loader;
+import com.google.ortools.sat.BoolVar;
+import com.google.ortools.sat.CpModel;
+import com.google.ortools.sat.CpSolver;
+import com.google.ortools.sat.CpSolverSolutionCallback;
+import com.google.ortools.sat.CpSolverStatus;
+import com.google.ortools.sat.LinearExpr;
+import com.google.ortools.sat.LinearExprBuilder;
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.Availability;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Solver based on CP-SAT, which can run several search workers in parallel on the same model.
+ * The model is the same as CitySolver: one variable per (day of the week, activity), at most one activity per day,
+ * each activity at most once, only on the days it is available, and within the budget.
+ * CP-SAT only handles integers, so prices and budget are counted in cents.
+ */
+public class CpSatCitySolver implements ICitySolver {
+    static {
+        Loader.loadNativeLibraries();
+    }
+
+    private final int workers;
+
+    public CpSatCitySolver() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param workers number of search workers (threads) used for each solve
+     */
+    public CpSatCitySolver(int workers) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("At least one search worker is needed");
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * Solves the problem of selecting activities for a given number of days.
+     *
+     * @param activities list of activities available in the city
+     * @param startDay   day of the week when the trip starts (0 = Monday, 1 = Tuesday, ..., 6 = Sunday)
+     * @param nbDays     number of days of the trip (starting from the arrival day)
+     * @param budget     budget for the whole trip in the city (not including transportation to and from the city)
+     * @return List<Activity> where the list is indexed by days since startDay.
+     * If no activity is planned for a given day, the list will contain a null value.
+     */
+    public List<Activity> solve(List<Activity> activities, int startDay, int nbDays, double budget) {
+        try (ICitySolverSession session = openSession(activities, startDay, nbDays)) {
+            return session.solve(activities, budget);
+        }
+    }
+
+    /**
+     * Returns up to 'limit' plans with the most activities and, among them, the lowest price, using two solves
+     * whatever the number of plans.
+     */
+    @Override
+    public List<List<Activity>> solveAll(List<Activity> activities, int startDay, int nbDays, double budget, int limit) {
+        return new Session(activities, startDay, nbDays, workers).solveAll(activities, budget, limit);
+    }
+
+    /**
+     * CP-SAT models cannot be changed between solves, so the session only keeps the activities and
+     * builds a model with the selectable ones for each solve.
+     */
+    @Override
+    public ICitySolverSession openSession(List<Activity> activities, int startDay, int nbDays) {
+        return new Session(activities, startDay, nbDays, workers);
+    }
+
+    private static class Session implements ICitySolverSession {
+        private final List<Activity> activities;
+        private final int nbDays;
+        private final int workers;
+        // Day of the week of each class, in the order of the trip
+        private final int[] weekdays;
+        private final int[] dayCounts;
+        private final Map<Activity, Integer> indexes = new IdentityHashMap<>();
+        // Days of the week when each activity is available (bit d for day d)
+        private final byte[] availability;
+
+        private Session(List<Activity> activities, int startDay, int nbDays, int workers) {
+            this.activities = activities;
+            this.nbDays = nbDays;
+            this.workers = workers;
+
+            availability = new byte[activities.size()];
+            for (int a = 0; a < activities.size(); a++) {
+                indexes.putIfAbsent(activities.get(a), a);
+                availability[a] = Availability.mask(activities.get(a).availability());
+            }
+
+            // Day d of the trip belongs to class d % 7
+            int classCount = Math.min(nbDays, 7);
+            weekdays = new int[classCount];
+            dayCounts = new int[classCount];
+            for (int d = 0; d < nbDays; d++) {
+                weekdays[d % 7] = (startDay + d) % 7;
+                dayCounts[d % 7]++;
+            }
+        }
+
+        @Override
+        public List<Activity> solve(List<Activity> selectable, double budget) {
+            return solve(selectable, budget, null).activities();
+        }
+
+        @Override
+        public CitySolution solve(List<Activity> selectable, double budget, Instant deadline) {
+            if (budget <= 0) {
+                return new CitySolution(emptySolution(), true);
+            }
+
+            ActivityModel activityModel = buildModel(enabled(selectable), budget);
+            // Maximization of the number of activities
+            activityModel.model().maximize(activityModel.count());
+
+            CpSolver solver = new CpSolver();
+            solver.getParameters().setNumWorkers(workers);
+            if (deadline != null) {
+                double timeLimit = Duration.between(Instant.now(), deadline).toNanos() / 1e9;
+                if (timeLimit <= 0) {
+                    // Selecting no activity is always feasible
+                    return new CitySolution(emptySolution(), false);
+                }
+                solver.getParameters().setMaxTimeInSeconds(timeLimit);
+            }
+
+            CpSolverStatus status = solver.solve(activityModel.model());
+
+            if (deadline != null && status == CpSolverStatus.UNKNOWN) {
+                // Stopped before finding any solution
+                return new CitySolution(emptySolution(), false);
+            }
+            if (status != CpSolverStatus.OPTIMAL && (deadline == null || status != CpSolverStatus.FEASIBLE)) {
+                // Selecting no activity is always feasible, so this should never happen
+                throw new IllegalStateException("The problem cannot be solved.");
+            }
+
+            return new CitySolution(parse(activityModel.vars(), solver::booleanValue), status == CpSolverStatus.OPTIMAL);
+        }
+
+        /**
+         * First finds the best (number of activities, price) with a single objective, then enumerates the sets of activities
+         * reaching it in one search. The search only decides which activities are selected, so that each set is found once
+         * instead of once per placement on the days; each set is then placed on the days.
+         */
+        @Override
+        public List<List<Activity>> solveAll(List<Activity> selectable, double budget, int limit) {
+            if (budget <= 0) {
+                return List.of(emptySolution());
+            }
+
+            boolean[] enabled = enabled(selectable);
+            SelectionModel selectionModel = buildSelectionModel(enabled, budget);
+            CpModel model = selectionModel.model();
+
+            // One more activity is worth more than any price difference
+            long weight = 1;
+            for (int a = 0; a < activities.size(); a++) {
+                if (enabled[a]) weight += cents(activities.get(a));
+            }
+            model.maximize(LinearExpr.newBuilder().addTerm(selectionModel.count(), weight).addTerm(selectionModel.price(), -1));
+
+            CpSolver solver = new CpSolver();
+            solver.getParameters().setNumWorkers(workers);
+            if (solver.solve(model) != CpSolverStatus.OPTIMAL) {
+                throw new IllegalStateException("The problem cannot be solved.");
+            }
+            long bestCount = solver.value(selectionModel.count());
+            long bestPrice = solver.value(selectionModel.price());
+
+            model.clearObjective();
+            model.addEquality(selectionModel.count(), bestCount);
+            model.addEquality(selectionModel.price(), bestPrice);
+
+            List<List<Activity>> plans = new ArrayList<>();
+            CpSolver enumerator = new CpSolver();
+            // Enumeration is only supported with a single worker
+            enumerator.getParameters().setNumWorkers(1).setEnumerateAllSolutions(true);
+            enumerator.solve(model, new CpSolverSolutionCallback() {
+                @Override
+                public void onSolutionCallback() {
+                    List<Integer> selected = new ArrayList<>();
+                    for (int a = 0; a < activities.size(); a++) {
+                        if (selectionModel.selected()[a] != null && booleanValue(selectionModel.selected()[a])) selected.add(a);
+                    }
+                    plans.add(place(selected, selectionModel.classes()));
+                    if (plans.size() >= limit) {
+                        stopSearch();
+                    }
+                }
+            });
+
+            return plans;
+        }
+
+        /**
+         * Model with one variable per activity, telling if it is selected. A set of activities can be placed on the days
+         * if and only if, for every set T of days of the week, the activities only available on days of T are not more
+         * than the days of the trip in T (Hall's theorem), so there is one constraint per set of days of the week.
+         */
+        private SelectionModel buildSelectionModel(boolean[] enabled, double budget) {
+            CpModel model = new CpModel();
+            // Days of the week (as classes) when each selectable activity is available
+            int[] classes = new int[activities.size()];
+            BoolVar[] selected = new BoolVar[activities.size()];
+            LinearExprBuilder price = LinearExpr.newBuilder();
+            LinearExprBuilder count = LinearExpr.newBuilder();
+            for (int a = 0; a < activities.size(); a++) {
+                if (!enabled[a]) continue;
+                for (int c = 0; c < weekdays.length; c++) {
+                    if ((availability[a] >> weekdays[c] & 1) != 0) classes[a] |= 1 << c;
+                }
+                if (classes[a] == 0) continue;
+                selected[a] = model.newBoolVar("activity_" + a);
+                price.addTerm(selected[a], cents(activities.get(a)));
+                count.add(selected[a]);
+            }
+
+            for (int days = 1; days < 1 << weekdays.length; days++) {
+                LinearExprBuilder activitiesOfDays = LinearExpr.newBuilder();
+                boolean empty = true;
+                for (int a = 0; a < activities.size(); a++) {
+                    if (selected[a] != null && (classes[a] & ~days) == 0) {
+                        activitiesOfDays.add(selected[a]);
+                        empty = false;
+                    }
+                }
+                if (empty) continue;
+                long capacity = 0;
+                for (int c = 0; c < weekdays.length; c++) {
+                    if ((days >> c & 1) != 0) capacity += dayCounts[c];
+                }
+                model.addLessOrEqual(activitiesOfDays, capacity);
+            }
+
+            // Total price of the selected activities within the budget, in cents
+            model.addLessOrEqual(price, (long) Math.floor(budget * 100 + 1e-6));
+
+            return new SelectionModel(model, selected, classes, count.build(), price.build());
+        }
+
+        /**
+         * Places a set of activities that fits on the days (bipartite matching of the activities with the days of the trip),
+         * then builds the plan like parse: the activities of a class go to its days in order.
+         */
+        private List<Activity> place(List<Integer> selected, int[] classes) {
+            List<List<Integer>> assigned = new ArrayList<>();
+            for (int c = 0; c < weekdays.length; c++) {
+                assigned.add(new ArrayList<>());
+            }
+            for (int a : selected) {
+                if (!assign(a, classes, assigned, new boolean[weekdays.length])) {
+                    throw new IllegalStateException("The selected activities cannot be placed on the days.");
+                }
+            }
+
+            List<Activity> solution = emptySolution();
+            for (int c = 0; c < weekdays.length; c++) {
+                List<Integer> ofClass = assigned.get(c);
+                Collections.sort(ofClass);
+                int day = c;
+                for (int a : ofClass) {
+                    solution.set(day, activities.get(a));
+                    day += 7;
+                }
+            }
+            return solution;
+        }
+
+        /**
+         * Gives activity 'a' a class with a free day, moving already placed activities to other classes if needed (augmenting path).
+         */
+        private boolean assign(int a, int[] classes, List<List<Integer>> assigned, boolean[] visited) {
+            for (int c = 0; c < weekdays.length; c++) {
+                if ((classes[a] >> c & 1) == 0 || visited[c]) continue;
+                visited[c] = true;
+                if (assigned.get(c).size() < dayCounts[c]) {
+                    assigned.get(c).add(a);
+                    return true;
+                }
+                for (int i = 0; i < assigned.get(c).size(); i++) {
+                    int other = assigned.get(c).get(i);
+                    if (assign(other, classes, assigned, visited)) {
+                        // 'other' was added to another class, 'a' takes its place
+                        assigned.get(c).set(i, a);
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean[] enabled(List<Activity> selectable) {
+            boolean[] enabled = new boolean[activities.size()];
+            for (Activity activity : selectable) {
+                Integer index = indexes.get(activity);
+                if (index == null) {
+                    throw new IllegalArgumentException("Activity not in the session: " + activity.name());
+                }
+                enabled[index] = true;
+            }
+            return enabled;
+        }
+
+        private ActivityModel buildModel(boolean[] enabled, double budget) {
+            CpModel model = new CpModel();
+            // Variables are only created for activities that can be selected and are available on the day of the week
+            BoolVar[][] vars = new BoolVar[weekdays.length][activities.size()];
+            for (int c = 0; c < weekdays.length; c++) {
+                for (int a = 0; a < activities.size(); a++) {
+                    if (enabled[a] && (availability[a] >> weekdays[c] & 1) != 0) {
+                        vars[c][a] = model.newBoolVar("weekday_" + weekdays[c] + "_activity_" + a);
+                    }
+                }
+            }
+
+            // Cannot have more than one activity on the same day, i.e. more activities on a day of the week than its occurrences
+            for (int c = 0; c < weekdays.length; c++) {
+                LinearExprBuilder activitiesOfDay = LinearExpr.newBuilder();
+                for (int a = 0; a < activities.size(); a++) {
+                    if (vars[c][a] != null) activitiesOfDay.add(vars[c][a]);
+                }
+                model.addLessOrEqual(activitiesOfDay, dayCounts[c]);
+            }
+
+            LinearExprBuilder price = LinearExpr.newBuilder();
+            LinearExprBuilder count = LinearExpr.newBuilder();
+            for (int a = 0; a < activities.size(); a++) {
+                LinearExprBuilder daysOfActivity = LinearExpr.newBuilder();
+                for (int c = 0; c < weekdays.length; c++) {
+                    if (vars[c][a] == null) continue;
+                    daysOfActivity.add(vars[c][a]);
+                    price.addTerm(vars[c][a], cents(activities.get(a)));
+                    count.add(vars[c][a]);
+                }
+                // Same activity cannot be selected on two different days
+                model.addLessOrEqual(daysOfActivity, 1);
+            }
+
+            // Total price of the selected activities within the budget, in cents
+            model.addLessOrEqual(price, (long) Math.floor(budget * 100 + 1e-6));
+
+            return new ActivityModel(model, vars, count.build(), price.build());
+        }
+
+        /**
+         * Reads a solution: the activities of a class go to its days in order.
+         */
+        private List<Activity> parse(BoolVar[][] vars, Function<BoolVar, Boolean> value) {
+            List<Activity> solution = emptySolution();
+            for (int c = 0; c < weekdays.length; c++) {
+                int day = c;
+                for (int a = 0; a < activities.size(); a++) {
+                    if (vars[c][a] != null && value.apply(vars[c][a])) {
+                        solution.set(day, activities.get(a));
+                        day += 7;
+                    }
+                }
+            }
+            return solution;
+        }
+
+        private List<Activity> emptySolution() {
+            List<Activity> solution = new ArrayList<>(nbDays);
+            for (int i = 0; i < nbDays; i++) {
+                solution.add(null);
+            }
+            return solution;
+        }
+
+        /**
+         * Rounded up, like the budget is rounded down, so that a plan within the budget in cents is within the real budget.
+         */
+        private static long cents(Activity activity) {
+            return (long) Math.ceil(activity.price() * 100 - 1e-6);
+        }
+    }
+
+    private record ActivityModel(CpModel model, BoolVar[][] vars, LinearExpr count, LinearExpr price) {
+    }
+
+    private record SelectionModel(CpModel model, BoolVar[] selected, int[] classes, LinearExpr count, LinearExpr price) {
+    }
+}
@@ -27,4 +27,28 @@ public interface ICityOptimizer {
      * If no hotel is found, it will throw an IllegalArgumentException.
      */
     Pair<Hotel, List<Activity>> optimize(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date);
+
+    /**
+     * Same as optimize, and tells whether the stay is optimal or was found under a deadline.
+     * By default, the stays of optimize are considered optimal.
+     */
+    default CityPlan plan(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date) {
+        return CityPlan.optimal(optimize(city, startDay, nbDays, budget, cityCriteria, date));
+    }
+
+    /**
+     * Same as optimize, but returns every hotel and activities as good as the best ones according to the criteria
+     * (at most 'limit', none if it is 0). If no hotel is found, it will throw an IllegalArgumentException.
+     */
+    List<Pair<Hotel, List<Activity>>> optimizeAll(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date, int limit);
+
+    /**
+     * Same as optimizeAll, and tells whether the stays are optimal or were found under a deadline.
+     * By default, the stays of optimizeAll are considered optimal.
+     */
+    default List<CityPlan> planAll(String city, int startDay, int nbDays, double budget, CityCriteria cityCriteria, LocalDateTime date, int limit) {
+        return optimizeAll(city, startDay, nbDays, budget, cityCriteria, date, limit).stream()
+                .map(CityPlan::optimal)
+                .toList();
+    }
 }
@@ -2,6 +2,7 @@ package com.testlog.projet.optimize.city;
 
 import com.testlog.projet.types.Activity;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface ICitySolver {
@@ -16,4 +17,46 @@ public interface ICitySolver {
      * @return List<Activity> where the list is indexed by days since startDay. If no activity is planned for a given day, the list will contain a null value.
      */
     List<Activity> solve(List<Activity> activities, int startDay, int nbDays, double budget);
+
+    /**
+     * Returns up to 'limit' plans with the most activities and, among them, the lowest price.
+     * Plans placing the same activities on other days are only returned once.
+     * By default, only the plan returned by solve is given.
+     */
+    default List<List<Activity>> solveAll(List<Activity> activities, int startDay, int nbDays, double budget, int limit) {
+        return List.of(solve(activities, startDay, nbDays, budget));
+    }
+
+    /**
+     * Same as solve, but stops at the deadline and returns the best solution found so far.
+     *
+     * @param deadline time when the solver must return, or null to wait for the optimal solution
+     */
+    default CitySolution solve(List<Activity> activities, int startDay, int nbDays, double budget, Instant deadline) {
+        try (ICitySolverSession session = openSession(activities, startDay, nbDays)) {
+            return session.solve(activities, budget, deadline);
+        }
+    }
+
+    /**
+     * Prepares a session to solve the problem several times over subsets of the given activities.
+     * By default, every call to the session solves the problem from scratch, with solve or solveAll.
+     *
+     * @param activities all the activities that can be selected during the session
+     * @param startDay   day of the week when the trip starts (0 = Monday, 1 = Tuesday, ..., 6 = Sunday)
+     * @param nbDays     number of days of the trip (starting from the arrival day)
+     */
+    default ICitySolverSession openSession(List<Activity> activities, int startDay, int nbDays) {
+        return new ICitySolverSession() {
+            @Override
+            public List<Activity> solve(List<Activity> nearActivities, double budget) {
+                return ICitySolver.this.solve(nearActivities, startDay, nbDays, budget);
+            }
+
+            @Override
+            public List<List<Activity>> solveAll(List<Activity> nearActivities, double budget, int limit) {
+                return ICitySolver.this.solveAll(nearActivities, startDay, nbDays, budget, limit);
+            }
+        };
+    }
 }
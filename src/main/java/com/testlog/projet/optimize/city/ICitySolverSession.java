@@ -0,0 +1,46 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.types.Activity;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Solver prepared once for all the activities of a city, a start day and a number of days,
+ * then solved for several subsets of these activities (e.g. the ones near each hotel).
+ */
+public interface ICitySolverSession extends AutoCloseable {
+    /**
+     * Same as ICitySolver.solve, restricted to some of the activities of the session.
+     *
+     * @param activities activities that can be selected, all of them must belong to the session
+     * @param budget     budget for the whole trip in the city (not including transportation to and from the city)
+     * @return List<Activity> where the list is indexed by days since startDay. If no activity is planned for a given day, the list will contain a null value.
+     */
+    List<Activity> solve(List<Activity> activities, double budget);
+
+    /**
+     * Same as solve, but stops at the deadline and returns the best solution found so far.
+     * By default, the solver is assumed to be fast enough to always run to the end.
+     *
+     * @param deadline time when the solver must return, or null to wait for the optimal solution
+     */
+    default CitySolution solve(List<Activity> activities, double budget, Instant deadline) {
+        return new CitySolution(solve(activities, budget), true);
+    }
+
+    /**
+     * Same as ICitySolver.solveAll, restricted to some of the activities of the session.
+     * By default, only the plan returned by solve is given.
+     */
+    default List<List<Activity>> solveAll(List<Activity> activities, double budget, int limit) {
+        return List.of(solve(activities, budget));
+    }
+
+    /**
+     * Releases the resources of the session.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,95 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.Availability;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exact solver without linear programming.
+ * Sets of activities that can all be given a different available day form a matroid (transversal matroid),
+ * so adding activities by increasing price whenever they can still be matched to a day gives,
+ * for every count k, the cheapest k activities that fit in the trip. The solution is the longest of these
+ * prefixes within the budget. Each activity is matched with an augmenting path, which may move
+ * the activities already selected to other days.
+ */
+public class MatchingCitySolver implements ICitySolver {
+
+    /**
+     * Solves the problem of selecting activities for a given number of days.
+     *
+     * @param activities list of activities available in the city
+     * @param startDay   day of the week when the trip starts (0 = Monday, 1 = Tuesday, ..., 6 = Sunday)
+     * @param nbDays     number of days of the trip (starting from the arrival day)
+     * @param budget     budget for the whole trip in the city (not including transportation to and from the city)
+     * @return List<Activity> where the list is indexed by days since startDay.
+     * If no activity is planned for a given day, the list will contain a null value.
+     */
+    @Override
+    public List<Activity> solve(List<Activity> activities, int startDay, int nbDays, double budget) {
+        List<Activity> solution = new ArrayList<>(nbDays);
+        for (int i = 0; i < nbDays; i++) {
+            solution.add(null);
+        }
+
+        if (budget <= 0 || nbDays == 0) {
+            return solution;
+        }
+
+        Integer[] order = new Integer[activities.size()];
+        for (int a = 0; a < order.length; a++) {
+            order[a] = a;
+        }
+        Arrays.sort(order, Comparator.comparingDouble(a -> activities.get(a).price()));
+
+        // Days of the week when each activity is available (bit d for day d)
+        byte[] availability = new byte[activities.size()];
+        for (int a = 0; a < availability.length; a++) {
+            availability[a] = Availability.mask(activities.get(a).availability());
+        }
+
+        // Activity planned on each day, -1 if none
+        int[] planned = new int[nbDays];
+        Arrays.fill(planned, -1);
+        int selected = 0;
+        double spent = 0;
+
+        for (int a : order) {
+            // Activities are sorted by price, so none of the next ones fits either
+            if (spent + activities.get(a).price() > budget) break;
+
+            if (match(a, availability, startDay, planned, new boolean[nbDays])) {
+                spent += activities.get(a).price();
+                // Every day has an activity, no other activity can be added
+                if (++selected == nbDays) break;
+            }
+        }
+
+        for (int d = 0; d < nbDays; d++) {
+            if (planned[d] != -1) {
+                solution.set(d, activities.get(planned[d]));
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Looks for a day for the activity, moving the activity planned on that day to another of its days if needed.
+     * Returns true if the activity was planned.
+     */
+    private boolean match(int activity, byte[] availability, int startDay, int[] planned, boolean[] visited) {
+        for (int d = 0; d < planned.length; d++) {
+            if (visited[d] || (availability[activity] >> (startDay + d) % 7 & 1) == 0) continue;
+            visited[d] = true;
+
+            if (planned[d] == -1 || match(planned[d], availability, startDay, planned, visited)) {
+                planned[d] = activity;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,118 @@
+package com.testlog.projet.optimize.city;
+
+import com.google.ortools.Loader;
+import com.google.ortools.linearsolver.MPConstraint;
+import com.google.ortools.linearsolver.MPSolver;
+import com.google.ortools.linearsolver.MPVariable;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fixed-size pool of CBC solvers.
+ * The native libraries are loaded and every solver runs a small solve when the pool is created,
+ * so the first request does not pay for them. Solvers are cleared when they are released, which frees the native
+ * memory of their model right away instead of waiting for the garbage collector, and deleted when the pool is closed.
+ * Callers block while every solver is in use.
+ */
+public class SolverPool implements AutoCloseable {
+    private final BlockingQueue<MPSolver> idle;
+    private final AtomicLong allocations = new AtomicLong();
+    private final AtomicLong deletions = new AtomicLong();
+    private final AtomicInteger inUse = new AtomicInteger();
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private volatile boolean closed;
+
+    public SolverPool(int size) {
+        if (size <= 0) {
+            throw new IllegalArgumentException("The pool must contain at least one solver");
+        }
+        Loader.loadNativeLibraries();
+
+        idle = new ArrayBlockingQueue<>(size);
+        for (int i = 0; i < size; i++) {
+            MPSolver solver = MPSolver.createSolver("CBC");
+            allocations.incrementAndGet();
+            warmUp(solver);
+            idle.add(solver);
+        }
+    }
+
+    /**
+     * Lends a solver with an empty model, waiting for one to be released if needed.
+     */
+    public MPSolver acquire() {
+        if (closed) {
+            throw new IllegalStateException("The solver pool is closed");
+        }
+
+        long start = System.nanoTime();
+        MPSolver solver;
+        try {
+            solver = idle.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a solver", e);
+        }
+        long wait = System.nanoTime() - start;
+
+        inUse.incrementAndGet();
+        acquisitions.incrementAndGet();
+        totalWaitNanos.addAndGet(wait);
+        maxWaitNanos.accumulateAndGet(wait, Math::max);
+        return solver;
+    }
+
+    /**
+     * Clears the model of the solver and gives it back to the pool, or deletes it if the pool is closed.
+     */
+    public void release(MPSolver solver) {
+        solver.clear();
+        inUse.decrementAndGet();
+        if (closed || !idle.offer(solver)) {
+            delete(solver);
+        } else if (closed) {
+            // The pool was closed while the solver was given back
+            close();
+        }
+    }
+
+    public SolverPoolStats getStats() {
+        return new SolverPoolStats(allocations.get(), deletions.get(), idle.size(), inUse.get(),
+                acquisitions.get(), totalWaitNanos.get(), maxWaitNanos.get());
+    }
+
+    /**
+     * Deletes the idle solvers. Solvers still in use are deleted when they are released.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        MPSolver solver;
+        while ((solver = idle.poll()) != null) {
+            delete(solver);
+        }
+    }
+
+    private void delete(MPSolver solver) {
+        solver.delete();
+        deletions.incrementAndGet();
+    }
+
+    /**
+     * Solves a one-variable model so that the solver and the native code it uses are initialized.
+     */
+    private void warmUp(MPSolver solver) {
+        MPVariable x = solver.makeBoolVar("x");
+        MPConstraint constraint = solver.makeConstraint(0, 1);
+        constraint.setCoefficient(x, 1);
+        solver.objective().setCoefficient(x, 1);
+        solver.objective().setMaximization();
+        solver.solve();
+        solver.clear();
+    }
+}
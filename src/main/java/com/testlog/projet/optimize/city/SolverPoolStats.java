@@ -0,0 +1,21 @@
+package com.testlog.projet.optimize.city;
+
+/**
+ * Snapshot of the counters of a solver pool.
+ *
+ * @param allocations    native solvers created since the pool was opened
+ * @param deletions      native solvers deleted (their memory is released)
+ * @param idle           solvers waiting in the pool
+ * @param inUse          solvers currently lent to a caller
+ * @param acquisitions   number of times a solver was lent
+ * @param totalWaitNanos time spent by callers waiting for a solver
+ * @param maxWaitNanos   longest time a caller waited for a solver
+ */
+public record SolverPoolStats(long allocations, long deletions, int idle, int inUse, long acquisitions, long totalWaitNanos, long maxWaitNanos) {
+    /**
+     * Average time spent waiting for a solver, 0 if no solver was lent.
+     */
+    public double averageWaitNanos() {
+        return acquisitions == 0 ? 0 : (double) totalWaitNanos / acquisitions;
+    }
+}
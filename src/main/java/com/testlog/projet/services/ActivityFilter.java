@@ -0,0 +1,44 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.Availability;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Activities that can be part of a stay: of one of the categories, open on at least one day of the stay
+ * ('days' is a mask of the days of the week, as Availability.mask) and not more expensive than 'maxPrice'.
+ * Activities left out could never be selected by a solver, so filtering them only makes the solver input smaller.
+ */
+public record ActivityFilter(Set<ActivityType> categories, byte days, double maxPrice) {
+
+    /**
+     * Filter for a stay of 'nbDays' days starting on 'startDay' (0 = Monday), with 'maxPrice' left for the activities.
+     */
+    public static ActivityFilter of(Set<ActivityType> categories, int startDay, int nbDays, double maxPrice) {
+        int days = 0;
+        for (int d = 0; d < Math.min(nbDays, 7); d++) {
+            days |= 1 << (startDay + d) % 7;
+        }
+        return new ActivityFilter(EnumSet.copyOf(categories), (byte) days, maxPrice);
+    }
+
+    /**
+     * Categories as a mask of their ordinals, to be checked against a column of ordinals.
+     */
+    public int categoryMask() {
+        int mask = 0;
+        for (ActivityType category : categories) {
+            mask |= 1 << category.ordinal();
+        }
+        return mask;
+    }
+
+    public boolean test(Activity activity) {
+        return categories.contains(activity.type())
+                && (Availability.mask(activity.availability()) & days) != 0
+                && activity.price() <= maxPrice;
+    }
+}
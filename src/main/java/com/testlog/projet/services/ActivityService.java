@@ -5,7 +5,6 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.testlog.projet.services.io.IFileReader;
 import com.testlog.projet.types.Activity;
-import com.testlog.projet.types.ActivityType;
 import com.testlog.projet.types.LatLng;
 
 import java.io.IOException;
@@ -13,34 +12,94 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-
-public class ActivityService implements ICityService<Activity> {
-
-    private final Map<String, List<ActivityInfo>> cityData;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Activities of each city, read from activities.json when the service is created, and kept in arrays indexed
+ * by the ids of a CityRegistry.
+ * The first time a city is requested, its activities are parsed into a columnar store (see ActivityStore),
+ * and the raw values of the file are dropped. All the requests then share the same Activity instances,
+ * and the activities near a hotel are filtered on the columns of the store.
+ */
+public class ActivityService implements IActivityService, IIndexedCityService<Activity> {
+    private static final ActivityStore EMPTY = ActivityStore.build("", List.of());
+
+    private final CityRegistry cities;
+    // Raw values of each city by id, until its store is built
+    private final AtomicReferenceArray<List<ActivityInfo>> cityData;
+    private final AtomicReferenceArray<ActivityStore> stores;
     private final IFileReader fileReader;
 
     public ActivityService(IFileReader fileReader) {
+        this(fileReader, new CityRegistry());
+    }
+
+    /**
+     * @param cities registry shared with the other services, the cities of activities.json are added to it
+     */
+    public ActivityService(IFileReader fileReader, CityRegistry cities) {
         this.fileReader = fileReader;
-        this.cityData = loadCityData();
+        this.cities = cities;
+
+        Map<String, List<ActivityInfo>> data = loadCityData();
+        data.keySet().forEach(cities::register);
+        this.cityData = new AtomicReferenceArray<>(cities.size());
+        this.stores = new AtomicReferenceArray<>(cities.size());
+        data.forEach((city, activities) -> cityData.set(cities.find(city), activities));
     }
 
     @Override
     public List<Activity> getForCity(String city, LocalDateTime date) {
-        List<Activity> activities = new ArrayList<>();
-        List<ActivityInfo> activityInfos = cityData.getOrDefault(city, List.of());
-
-        for (ActivityInfo activityInfo : activityInfos) {
-            activities.add(new Activity(
-                    activityInfo.getName(),
-                    activityInfo.getAddress(),
-                    city,
-                    new LatLng(Double.parseDouble(activityInfo.getLat()), Double.parseDouble(activityInfo.getLon())),
-                    ActivityType.valueOf(activityInfo.getCategory().toUpperCase()),
-                    activityInfo.getPrice(),
-                    activityInfo.getDays()
-            ));
+        return getForCity(cities.find(city), date);
+    }
+
+    @Override
+    public List<Activity> getForCity(int city, LocalDateTime date) {
+        return new ArrayList<>(getStore(city).activities());
+    }
+
+    @Override
+    public List<Activity> getWithin(String city, LocalDateTime date, LatLng center, double radius) {
+        return getStore(cities.find(city)).within(center, radius);
+    }
+
+    @Override
+    public List<Activity> getWithin(String city, LocalDateTime date, LatLng center, double radius, ActivityFilter filter) {
+        return getStore(cities.find(city)).within(center, radius, filter);
+    }
+
+    @Override
+    public CityRegistry getCities() {
+        return cities;
+    }
+
+    /**
+     * If several threads build the store of a city at the same time, they all return the first one published,
+     * so that the Activity instances are the same for everyone.
+     */
+    private ActivityStore getStore(int city) {
+        if (city < 0 || city >= stores.length()) return EMPTY;
+
+        ActivityStore store = stores.get(city);
+        if (store != null) return store;
+
+        List<ActivityInfo> infos = cityData.get(city);
+        if (infos == null) {
+            // Another thread built the store in the meantime, or the city has no activities
+            store = stores.get(city);
+            return store == null ? EMPTY : store;
+        }
+        List<ActivityStore.Row> rows = infos.stream()
+                .map(info -> new ActivityStore.Row(info.getName(), info.getAddress(), info.getLat(), info.getLon(),
+                        info.getCategory(), info.getPrice(), info.getDays()))
+                .toList();
+        store = ActivityStore.build(cities.name(city), rows);
+        if (!stores.compareAndSet(city, null, store)) {
+            return stores.get(city);
         }
-        return activities;
+        // The store holds everything, the raw values are not needed anymore
+        cityData.set(city, null);
+        return store;
     }
 
     private Map<String, List<ActivityInfo>> loadCityData() {
@@ -0,0 +1,97 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.Availability;
+import com.testlog.projet.types.LatLng;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Activities of a city stored column by column: prices as doubles, categories as ordinals and availabilities
+ * as 7-bit masks, with interned strings (many activities share an address or a name).
+ * Radius queries go through a spatial index, and are filtered on the columns by index: the Activity records,
+ * built once with shared Availability instances, are only gathered for the activities kept.
+ */
+class ActivityStore {
+    private final double[] price;
+    private final byte[] category;
+    private final byte[] availability;
+
+    private final List<Activity> activities;
+    private final SpatialIndex<Activity> index;
+
+    private ActivityStore(List<Activity> activities, double[] price, byte[] category, byte[] availability) {
+        this.price = price;
+        this.category = category;
+        this.availability = availability;
+        this.activities = List.copyOf(activities);
+        this.index = new SpatialIndex<>(this.activities, Activity::coordinates);
+    }
+
+    /**
+     * Builds the columns of a city from the raw values of the file.
+     * Throws a NumberFormatException or an IllegalArgumentException if a coordinate or a category is invalid.
+     */
+    static ActivityStore build(String city, List<Row> rows) {
+        int size = rows.size();
+        double[] price = new double[size];
+        byte[] category = new byte[size];
+        byte[] availability = new byte[size];
+        List<Activity> activities = new ArrayList<>(size);
+
+        String sharedCity = city.intern();
+        for (int i = 0; i < size; i++) {
+            Row row = rows.get(i);
+            LatLng coordinates = new LatLng(Double.parseDouble(row.lat()), Double.parseDouble(row.lon()));
+            ActivityType type = ActivityType.valueOf(row.category().toUpperCase());
+            price[i] = row.price();
+            category[i] = (byte) type.ordinal();
+            availability[i] = row.days() == null ? 0 : Availability.mask(row.days());
+            String name = row.name() == null ? null : row.name().intern();
+            String address = row.address() == null ? null : row.address().intern();
+            activities.add(new Activity(name, address, sharedCity, coordinates, type, price[i], Availability.of(availability[i])));
+        }
+        return new ActivityStore(activities, price, category, availability);
+    }
+
+    List<Activity> activities() {
+        return activities;
+    }
+
+    /**
+     * Activities at most 'radius' km away from 'center', in the order of the store.
+     */
+    List<Activity> within(LatLng center, double radius) {
+        int[] indexes = index.indexesWithin(center, radius);
+        List<Activity> result = new ArrayList<>(indexes.length);
+        for (int i : indexes) {
+            result.add(activities.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Same as within, keeping the activities accepted by the filter, checked on the columns.
+     */
+    List<Activity> within(LatLng center, double radius, ActivityFilter filter) {
+        int categories = filter.categoryMask();
+        byte days = filter.days();
+        double maxPrice = filter.maxPrice();
+
+        List<Activity> result = new ArrayList<>();
+        for (int i : index.indexesWithin(center, radius)) {
+            if ((categories >> category[i] & 1) != 0 && (availability[i] & days) != 0 && price[i] <= maxPrice) {
+                result.add(activities.get(i));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Raw values of an activity, as read from the file.
+     */
+    record Row(String name, String address, String lat, String lon, String category, double price, List<Boolean> days) {
+    }
+}
@@ -0,0 +1,14 @@
+package com.testlog.projet.services;
+
+/**
+ * Snapshot of the counters of a cache. Evictions include both entries dropped for size and expired entries.
+ */
+public record CacheStats(long hits, long misses, long evictions) {
+    /**
+     * Ratio of requests served from the cache, 0 if there was no request.
+     */
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,151 @@
+package com.testlog.projet.services;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.UnaryOperator;
+
+/**
+ * Caching decorator for any city service.
+ * Entries are evicted when the cache is full (least recently used first) or when they are older than the time to live.
+ * Concurrent requests for the same key share a single call to the wrapped service.
+ * The returned lists are shared between callers and cannot be modified.
+ */
+public class CachingCityService<T> implements ICityService<T> {
+
+    private final ICityService<T> cityService;
+    private final int maxSize;
+    private final long timeToLiveNanos;
+    private final UnaryOperator<LocalDateTime> keyNormalizer;
+    private final LongSupplier clock;
+    private final Map<Key, Entry<T>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * @param cityService   service to cache
+     * @param maxSize       maximum number of (city, date) entries kept
+     * @param timeToLive    how long an entry stays valid after it has been loaded
+     * @param keyNormalizer maps a date to the date actually requested to the service, two dates with the same
+     *                      normalized value must give the same result (see byDay() and byMinute())
+     */
+    public CachingCityService(ICityService<T> cityService, int maxSize, Duration timeToLive, UnaryOperator<LocalDateTime> keyNormalizer) {
+        this(cityService, maxSize, timeToLive, keyNormalizer, System::nanoTime);
+    }
+
+    CachingCityService(ICityService<T> cityService, int maxSize, Duration timeToLive, UnaryOperator<LocalDateTime> keyNormalizer, LongSupplier clock) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("The cache size must be positive");
+        }
+        this.cityService = cityService;
+        this.maxSize = maxSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.keyNormalizer = keyNormalizer;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry<T>> eldest) {
+                if (size() > CachingCityService.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * For services where the time of day is irrelevant (hotels, activities): one entry per city and day.
+     */
+    public static UnaryOperator<LocalDateTime> byDay() {
+        return date -> date.truncatedTo(ChronoUnit.DAYS);
+    }
+
+    /**
+     * For services where the minute matters (transports): the date is rounded up to the next minute,
+     * since a departure is only returned if it is not before the requested date.
+     * Dates after 23:59 are kept as they are: rounding them up would give midnight of the next day,
+     * whose departures are not returned for the requested day.
+     */
+    public static UnaryOperator<LocalDateTime> byMinute() {
+        return date -> {
+            LocalDateTime truncated = date.truncatedTo(ChronoUnit.MINUTES);
+            if (truncated.equals(date)) return truncated;
+            LocalDateTime rounded = truncated.plusMinutes(1);
+            return rounded.toLocalDate().equals(date.toLocalDate()) ? rounded : date;
+        };
+    }
+
+    @Override
+    public List<T> getForCity(String city, LocalDateTime date) {
+        Key key = new Key(city, keyNormalizer.apply(date));
+        CompletableFuture<List<T>> future;
+        Entry<T> created = null;
+
+        synchronized (entries) {
+            Entry<T> entry = entries.get(key);
+            if (entry != null && clock.getAsLong() - entry.loadedAt() > timeToLiveNanos) {
+                entries.remove(key);
+                evictions.incrementAndGet();
+                entry = null;
+            }
+
+            if (entry != null) {
+                hits.incrementAndGet();
+                future = entry.future();
+            } else {
+                misses.incrementAndGet();
+                future = new CompletableFuture<>();
+                created = new Entry<>(future, clock.getAsLong());
+                entries.put(key, created);
+            }
+        }
+
+        if (created != null) {
+            try {
+                future.complete(List.copyOf(cityService.getForCity(city, key.date())));
+            } catch (RuntimeException e) {
+                // Do not keep failures in the cache, the next request will try again
+                synchronized (entries) {
+                    entries.remove(key, created);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) throw cause;
+            throw e;
+        }
+    }
+
+    /**
+     * Drop every entry, for instance after the wrapped service reloaded its data.
+     */
+    public void invalidateAll() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public CacheStats getStats() {
+        return new CacheStats(hits.get(), misses.get(), evictions.get());
+    }
+
+    private record Key(String city, LocalDateTime date) {
+    }
+
+    private record Entry<T>(CompletableFuture<List<T>> future, long loadedAt) {
+    }
+}
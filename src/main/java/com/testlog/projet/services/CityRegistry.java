@@ -0,0 +1,62 @@
+package com.testlog.projet.services;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Dense integer ids for city names, given when the data of the services is loaded.
+ * The same registry can be shared by several services, so that a city has the same id everywhere, and the data of
+ * each city can be kept in arrays indexed by id. Ids are never removed: they stay valid when a service is reloaded.
+ * Each name is stored once, and name(id) always returns the same String instance.
+ */
+public final class CityRegistry {
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    // Grown by copies: a reader that got an id from 'ids' always finds the name in the current array
+    private volatile String[] names = new String[16];
+    private int size;
+
+    /**
+     * Returns the id of the city, giving it the next id if it is not registered yet.
+     */
+    public int register(String name) {
+        Integer id = ids.get(name);
+        if (id != null) return id;
+
+        synchronized (this) {
+            id = ids.get(name);
+            if (id != null) return id;
+
+            String[] current = names;
+            if (size == current.length) {
+                current = Arrays.copyOf(current, size * 2);
+            }
+            current[size] = name;
+            names = current;
+            ids.put(name, size);
+            return size++;
+        }
+    }
+
+    /**
+     * Returns the id of the city, or -1 if it was never registered.
+     */
+    public int find(String name) {
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    public String name(int id) {
+        if (id < 0 || id >= ids.size()) {
+            throw new IndexOutOfBoundsException("Unknown city id: " + id);
+        }
+        return names[id];
+    }
+
+    /**
+     * Number of registered cities, ids go from 0 to size() - 1.
+     */
+    public int size() {
+        return ids.size();
+    }
+}
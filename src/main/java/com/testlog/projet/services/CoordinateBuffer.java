@@ -0,0 +1,44 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+
+import java.util.List;
+
+/**
+ * Coordinates of many points stored column by column (one array per value), for distance kernels.
+ * Holds the sines and cosines cached by LatLng, so the kernels compute exactly the same values as LatLng.
+ */
+public final class CoordinateBuffer {
+    final int size;
+    final double[] sinHalfLat;
+    final double[] cosHalfLat;
+    final double[] sinHalfLng;
+    final double[] cosHalfLng;
+    final double[] cosLat;
+
+    private CoordinateBuffer(int size) {
+        this.size = size;
+        this.sinHalfLat = new double[size];
+        this.cosHalfLat = new double[size];
+        this.sinHalfLng = new double[size];
+        this.cosHalfLng = new double[size];
+        this.cosLat = new double[size];
+    }
+
+    public static CoordinateBuffer of(List<LatLng> points) {
+        CoordinateBuffer buffer = new CoordinateBuffer(points.size());
+        for (int i = 0; i < buffer.size; i++) {
+            LatLng point = points.get(i);
+            buffer.sinHalfLat[i] = point.sinHalfLat();
+            buffer.cosHalfLat[i] = point.cosHalfLat();
+            buffer.sinHalfLng[i] = point.sinHalfLng();
+            buffer.cosHalfLng[i] = point.cosHalfLng();
+            buffer.cosLat[i] = point.cosLat();
+        }
+        return buffer;
+    }
+
+    public int size() {
+        return size;
+    }
+}
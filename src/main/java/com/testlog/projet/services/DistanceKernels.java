@@ -0,0 +1,33 @@
+package com.testlog.projet.services;
+
+/**
+ * Chooses the distance kernel for the running JVM.
+ */
+public final class DistanceKernels {
+    private static final IDistanceKernel BEST = load();
+
+    private DistanceKernels() {
+    }
+
+    /**
+     * The Vector API kernel if it was built (maven profile "vector") and the jdk.incubator.vector module is available,
+     * the scalar kernel otherwise.
+     */
+    public static IDistanceKernel best() {
+        return BEST;
+    }
+
+    private static IDistanceKernel load() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded by name, so that this class never links to the Vector API when the module or the kernel is missing
+                return (IDistanceKernel) Class.forName("com.testlog.projet.services.VectorDistanceKernel")
+                        .getDeclaredConstructor()
+                        .newInstance();
+            } catch (ReflectiveOperationException | LinkageError e) {
+                // Fall back to the scalar kernel
+            }
+        }
+        return new ScalarDistanceKernel();
+    }
+}
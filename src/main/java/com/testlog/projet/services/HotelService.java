@@ -10,27 +10,49 @@ import com.testlog.projet.types.LatLng;
 import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
-public class HotelService implements ICityService<Hotel> {
+/**
+ * Hotels of each city, read from hotels.json and stored in an array indexed by the ids of a CityRegistry.
+ */
+public class HotelService implements IIndexedCityService<Hotel> {
 
-    private final Map<String, List<HotelInfo>> cityData;
+    private final CityRegistry cities;
+    // Hotels of each city by id, null for the cities registered by other services
+    private final List<List<HotelInfo>> cityData;
     private final IFileReader fileReader;
 
     public HotelService(IFileReader fileReader) {
+        this(fileReader, new CityRegistry());
+    }
+
+    /**
+     * @param cities registry shared with the other services, the cities of hotels.json are added to it
+     */
+    public HotelService(IFileReader fileReader, CityRegistry cities) {
         this.fileReader = fileReader;
-        this.cityData = loadCityData();
+        this.cities = cities;
+        this.cityData = index(loadCityData());
     }
 
     @Override
     public List<Hotel> getForCity(String city, LocalDateTime date) {
+        return getForCity(cities.find(city), date);
+    }
+
+    @Override
+    public List<Hotel> getForCity(int city, LocalDateTime date) {
         List<Hotel> hotels = new ArrayList<>();
-        List<HotelInfo> hotelInfos = cityData.getOrDefault(city, List.of());
+        if (city < 0 || city >= cityData.size() || cityData.get(city) == null) {
+            return hotels;
+        }
 
-        for (HotelInfo hotelInfo : hotelInfos) {
+        String name = cities.name(city);
+        for (HotelInfo hotelInfo : cityData.get(city)) {
             hotels.add(new Hotel(
-                    city,
+                    name,
                     new LatLng(Double.parseDouble(hotelInfo.getLat()), Double.parseDouble(hotelInfo.getLon())),
                     hotelInfo.getStars(),
                     hotelInfo.getName(),
@@ -41,6 +63,18 @@ public class HotelService implements ICityService<Hotel> {
         return hotels;
     }
 
+    @Override
+    public CityRegistry getCities() {
+        return cities;
+    }
+
+    private List<List<HotelInfo>> index(Map<String, List<HotelInfo>> data) {
+        data.keySet().forEach(cities::register);
+        List<List<HotelInfo>> indexed = new ArrayList<>(Collections.nCopies(cities.size(), null));
+        data.forEach((city, hotels) -> indexed.set(cities.find(city), hotels));
+        return indexed;
+    }
+
     private Map<String, List<HotelInfo>> loadCityData() {
         ObjectMapper mapper = new ObjectMapper();
         try {
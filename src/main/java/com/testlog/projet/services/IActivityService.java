@@ -0,0 +1,18 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.LatLng;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Activity service that filters the activities on its own columns (category, availability and price by index),
+ * so that only the activities kept are gathered in a list.
+ */
+public interface IActivityService extends ISpatialCityService<Activity> {
+    /**
+     * Same as getWithin, restricted to the activities accepted by the filter (ActivityFilter.test).
+     */
+    List<Activity> getWithin(String city, LocalDateTime date, LatLng center, double radius, ActivityFilter filter);
+}
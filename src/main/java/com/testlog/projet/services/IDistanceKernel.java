@@ -0,0 +1,39 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Computes the distances from a point to all the points of a buffer at once.
+ * Results are the same as LatLng.isWithin, and LatLng.distance up to rounding.
+ */
+public interface IDistanceKernel {
+    /**
+     * Distances in km from the center to each point of the buffer.
+     */
+    double[] distances(LatLng center, CoordinateBuffer points);
+
+    /**
+     * Points of the buffer at most 'radius' km away from the center: bit i is set if center.isWithin(point i, radius).
+     */
+    BitSet within(LatLng center, CoordinateBuffer points, double radius);
+
+    /**
+     * Same as within, only for the points of the buffer at the given indexes (the candidates of a spatial index):
+     * returns the indexes of the points within the radius, in the order of 'indexes'.
+     */
+    int[] within(LatLng center, CoordinateBuffer points, int[] indexes, double radius);
+
+    /**
+     * Same as within, for each center: row c of the hotel × activity matrix.
+     */
+    default BitSet[] within(List<LatLng> centers, CoordinateBuffer points, double radius) {
+        BitSet[] rows = new BitSet[centers.size()];
+        for (int c = 0; c < rows.length; c++) {
+            rows[c] = within(centers.get(c), points, radius);
+        }
+        return rows;
+    }
+}
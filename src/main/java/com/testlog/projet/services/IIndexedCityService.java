@@ -0,0 +1,17 @@
+package com.testlog.projet.services;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * City service keeping its data in arrays indexed by the ids of a CityRegistry,
+ * so that callers that already know the id of a city skip the lookup by name.
+ */
+public interface IIndexedCityService<T> extends ICityService<T> {
+    CityRegistry getCities();
+
+    /**
+     * Same as getForCity with the name of the city, empty for an id the service has no data for.
+     */
+    List<T> getForCity(int city, LocalDateTime date);
+}
@@ -0,0 +1,17 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * City service that can find the elements around a point without going through all the elements of the city.
+ */
+public interface ISpatialCityService<T> extends ICityService<T> {
+    /**
+     * Same as getForCity, restricted to the elements at most 'radius' km away from 'center' (LatLng.distance).
+     * Elements are in the same order, and are the same instances, as in getForCity.
+     */
+    List<T> getWithin(String city, LocalDateTime date, LatLng center, double radius);
+}
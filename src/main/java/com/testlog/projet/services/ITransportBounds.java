@@ -0,0 +1,33 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.TransportationMode;
+
+/**
+ * All-pairs tables computed from the transport graph, ignoring schedules.
+ * For every method, the mode restricts the connections used, NOT_SPECIFIED meaning any mode.
+ */
+public interface ITransportBounds {
+    /**
+     * Lower bound on the total price of any trip from origin to destination.
+     * Returns 0 if both cities are the same and Double.POSITIVE_INFINITY if the destination cannot be reached.
+     */
+    double getMinPrice(String origin, String destination, TransportationMode mode);
+
+    /**
+     * Lower bound on the time spent in transports (in minutes) for any trip from origin to destination.
+     * Returns 0 if both cities are the same and Double.POSITIVE_INFINITY if the destination cannot be reached.
+     */
+    double getMinDuration(String origin, String destination, TransportationMode mode);
+
+    /**
+     * Lower bound on the number of legs of any trip from origin to destination.
+     * Returns 0 if both cities are the same and Integer.MAX_VALUE if the destination cannot be reached.
+     */
+    int getMinLegs(String origin, String destination, TransportationMode mode);
+
+    /**
+     * Returns false if no sequence of connections leads from origin to destination. A true value does not guarantee
+     * that a trip exists at a given date.
+     */
+    boolean isReachable(String origin, String destination, TransportationMode mode);
+}
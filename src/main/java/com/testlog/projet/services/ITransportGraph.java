@@ -0,0 +1,21 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.SimpleTrip;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Transport service giving the ids of the arrival cities along with the trips, so that paths can be followed
+ * through the graph by id, without looking up the name of every arrival city.
+ */
+public interface ITransportGraph extends IIndexedCityService<SimpleTrip> {
+    /**
+     * Same trips as getForCity(city, dateTime), with the ids of their arrival cities in the same order.
+     * Both come from the same version of the data, even if it is reloaded concurrently.
+     */
+    Departures getDepartures(int city, LocalDateTime dateTime);
+
+    record Departures(List<SimpleTrip> trips, int[] arrivalCities) {
+    }
+}
@@ -0,0 +1,92 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Kernel going through the points one by one, used when the Vector API is not available.
+ * Also holds the formulas shared with VectorDistanceKernel, written in the same order as in LatLng
+ * so that the results are identical.
+ */
+public class ScalarDistanceKernel implements IDistanceKernel {
+    static final double EARTH_RADIUS = 6371.0;
+    // Haversines this close to the one of the radius are checked with the exact distance, as in LatLng.isWithin
+    static final double MARGIN = 1e-12;
+
+    @Override
+    public double[] distances(LatLng center, CoordinateBuffer points) {
+        Center c = Center.of(center);
+        double[] distances = new double[points.size];
+        for (int i = 0; i < points.size; i++) {
+            distances[i] = distance(haversine(c, points, i));
+        }
+        return distances;
+    }
+
+    @Override
+    public BitSet within(LatLng center, CoordinateBuffer points, double radius) {
+        BitSet within = new BitSet(points.size);
+        if (radius < 0) return within;
+        if (radius >= Math.PI * EARTH_RADIUS) {
+            within.set(0, points.size);
+            return within;
+        }
+
+        Center c = Center.of(center);
+        double limit = limit(radius);
+        for (int i = 0; i < points.size; i++) {
+            if (isWithin(haversine(c, points, i), limit, radius)) within.set(i);
+        }
+        return within;
+    }
+
+    @Override
+    public int[] within(LatLng center, CoordinateBuffer points, int[] indexes, double radius) {
+        if (radius < 0) return new int[0];
+        if (radius >= Math.PI * EARTH_RADIUS) return indexes.clone();
+
+        Center c = Center.of(center);
+        double limit = limit(radius);
+        int[] within = new int[indexes.length];
+        int count = 0;
+        for (int index : indexes) {
+            if (isWithin(haversine(c, points, index), limit, radius)) within[count++] = index;
+        }
+        return Arrays.copyOf(within, count);
+    }
+
+    static double haversine(Center c, CoordinateBuffer points, int i) {
+        double sinHalfDLat = points.sinHalfLat[i] * c.cosHalfLat() - points.cosHalfLat[i] * c.sinHalfLat();
+        double sinHalfDLng = points.sinHalfLng[i] * c.cosHalfLng() - points.cosHalfLng[i] * c.sinHalfLng();
+        return Math.min(1, sinHalfDLat * sinHalfDLat + c.cosLat() * points.cosLat[i] * sinHalfDLng * sinHalfDLng);
+    }
+
+    static double distance(double haversine) {
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(haversine));
+    }
+
+    /**
+     * Haversine of the radius.
+     */
+    static double limit(double radius) {
+        double limit = Math.sin(radius / EARTH_RADIUS / 2);
+        return limit * limit;
+    }
+
+    static boolean isWithin(double haversine, double limit, double radius) {
+        if (haversine < limit * (1 - MARGIN)) return true;
+        if (haversine > limit * (1 + MARGIN)) return false;
+        return distance(haversine) <= radius;
+    }
+
+    /**
+     * Sines and cosines of the center, cached by LatLng.
+     */
+    record Center(double sinHalfLat, double cosHalfLat, double sinHalfLng, double cosHalfLng, double cosLat) {
+        static Center of(LatLng center) {
+            return new Center(center.sinHalfLat(), center.cosHalfLat(), center.sinHalfLng(), center.cosHalfLng(), center.cosLat());
+        }
+    }
+}
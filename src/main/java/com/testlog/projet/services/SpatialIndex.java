@@ -0,0 +1,136 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Grid index over the coordinates of some elements, to find the ones within a distance of a point
+ * without computing the distance to all of them.
+ * Elements are grouped in cells of 'cellSize' degrees. A query only looks at the cells overlapping the bounding box
+ * of the circle, then the distance kernel (DistanceKernels.best()) keeps the candidates within the radius,
+ * with the same result as LatLng.isWithin.
+ * Results are in the order of the indexed list, as with a linear scan.
+ */
+public class SpatialIndex<T> {
+    // About 1 km, a few cells for the usual radius of a few km
+    static final double DEFAULT_CELL_SIZE = 0.01;
+    private static final double EARTH_RADIUS = 6371.0;
+
+    private final List<T> elements;
+    private final CoordinateBuffer coordinates;
+    private final IDistanceKernel kernel;
+    private final double cellSize;
+    // Indexes of the elements of each cell, in increasing order
+    private final Map<Long, int[]> cells = new HashMap<>();
+
+    public SpatialIndex(List<T> elements, Function<T, LatLng> coordinates) {
+        this(elements, coordinates, DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * @param cellSize size of the cells in degrees, ideally around the usual query radius
+     */
+    public SpatialIndex(List<T> elements, Function<T, LatLng> coordinates, double cellSize) {
+        this(elements, coordinates, cellSize, DistanceKernels.best());
+    }
+
+    SpatialIndex(List<T> elements, Function<T, LatLng> coordinates, double cellSize, IDistanceKernel kernel) {
+        if (cellSize <= 0) {
+            throw new IllegalArgumentException("The cell size must be positive");
+        }
+        this.elements = List.copyOf(elements);
+        this.kernel = kernel;
+        this.cellSize = cellSize;
+
+        List<LatLng> points = new ArrayList<>(elements.size());
+        Map<Long, List<Integer>> members = new HashMap<>();
+        for (int e = 0; e < elements.size(); e++) {
+            LatLng point = coordinates.apply(elements.get(e));
+            points.add(point);
+            members.computeIfAbsent(cell(row(point.lat()), column(point.lng())), k -> new ArrayList<>()).add(e);
+        }
+        members.forEach((cell, indexes) -> cells.put(cell, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.coordinates = CoordinateBuffer.of(points);
+    }
+
+    /**
+     * Returns the elements at most 'radius' km away from 'center'.
+     */
+    public List<T> within(LatLng center, double radius) {
+        int[] found = indexesWithin(center, radius);
+        List<T> result = new ArrayList<>(found.length);
+        for (int e : found) {
+            result.add(elements.get(e));
+        }
+        return result;
+    }
+
+    /**
+     * Same as within, with the indexes of the elements in the indexed list (in increasing order).
+     */
+    public int[] indexesWithin(LatLng center, double radius) {
+        if (radius < 0 || elements.isEmpty()) return new int[0];
+
+        // Bounding box of the circle, slightly enlarged so that rounding never excludes a point of the circle
+        double angle = radius / EARTH_RADIUS * (1 + 1e-9) + 1e-12;
+        double latMin = center.lat() - Math.toDegrees(angle);
+        double latMax = center.lat() + Math.toDegrees(angle);
+        double lngMin = -180;
+        double lngMax = 180;
+        if (latMin > -90 && latMax < 90) {
+            double ratio = Math.sin(angle) / Math.cos(Math.toRadians(center.lat()));
+            if (ratio < 1 && angle < Math.PI / 2) {
+                double deltaLng = Math.toDegrees(Math.asin(ratio));
+                if (center.lng() - deltaLng >= -180 && center.lng() + deltaLng <= 180) {
+                    lngMin = center.lng() - deltaLng;
+                    lngMax = center.lng() + deltaLng;
+                }
+            }
+        }
+
+        long rowMin = row(Math.max(latMin, -90));
+        long rowMax = row(Math.min(latMax, 90));
+        long columnMin = column(lngMin);
+        long columnMax = column(lngMax);
+
+        List<int[]> overlapping = new ArrayList<>();
+        if ((rowMax - rowMin + 1) * (columnMax - columnMin + 1) > cells.size()) {
+            // Large radius: going through the filled cells is cheaper than through the cells of the box
+            cells.forEach((cell, indexes) -> {
+                long row = cell >> 32;
+                long column = (int) (long) cell;
+                if (row >= rowMin && row <= rowMax && column >= columnMin && column <= columnMax) {
+                    overlapping.add(indexes);
+                }
+            });
+        } else {
+            for (long row = rowMin; row <= rowMax; row++) {
+                for (long column = columnMin; column <= columnMax; column++) {
+                    int[] indexes = cells.get(cell(row, column));
+                    if (indexes != null) overlapping.add(indexes);
+                }
+            }
+        }
+
+        // Back to the order of the list, then exact check of the candidates
+        int[] candidates = overlapping.stream()
+                .flatMapToInt(Arrays::stream)
+                .sorted()
+                .toArray();
+        return kernel.within(center, coordinates, candidates, radius);
+    }
+
+    private long row(double lat) {
+        return (long) Math.floor(lat / cellSize);
+    }
+
+    private long column(double lng) {
+        return (long) Math.floor(lng / cellSize);
+    }
+
+    private static long cell(long row, long column) {
+        return (row << 32) | (column & 0xFFFFFFFFL);
+    }
+}
@@ -8,44 +8,126 @@ import com.testlog.projet.types.SimpleTrip;
 import com.testlog.projet.types.TransportationMode;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalTime;
+import java.util.*;
 
-public class TransportService implements ICityService<SimpleTrip> {
+/**
+ * Departures of each city, read from trips.json. Cities are identified by the ids of a CityRegistry:
+ * timetables are stored in an array indexed by the id of the departure city, with the ids of the destinations,
+ * and the graph of direct connections is kept as int adjacency lists.
+ */
+public class TransportService implements ITransportGraph, ITransportBounds {
 
-    private final Map<String, List<ConnectionInfo>> cityData;
     private final IFileReader fileReader;
+    private final CityRegistry cities;
+    // Timetables and the tables derived from them are replaced together when the data is reloaded
+    private volatile Network network;
 
     public TransportService(IFileReader fileReader) {
+        this(fileReader, new CityRegistry());
+    }
+
+    /**
+     * @param cities registry shared with the other services, the cities of trips.json are added to it
+     */
+    public TransportService(IFileReader fileReader, CityRegistry cities) {
         this.fileReader = fileReader;
-        this.cityData = loadCityData();
+        this.cities = cities;
+        this.network = buildNetwork(loadCityData());
+    }
+
+    /**
+     * Reads trips.json again, then rebuilds the timetables and the all-pairs tables.
+     */
+    public void reload() {
+        this.network = buildNetwork(loadCityData());
     }
 
+    /**
+     * Returns the trips leaving the city on the same day as dateTime, not before dateTime, sorted by departure time.
+     */
     public List<SimpleTrip> getForCity(String city, LocalDateTime dateTime) {
-        List<SimpleTrip> trips = new ArrayList<>();
-        List<ConnectionInfo> connections = cityData.getOrDefault(city, List.of());
-
-        for (ConnectionInfo connection : connections) {
-            for (Schedule schedule : connection.getHours()) {
-                LocalDateTime departureTime = parseTime(dateTime.toLocalDate(), schedule.getStart());
-                LocalDateTime arrivalTime = parseTime(dateTime.toLocalDate(), schedule.getEnd());
-
-                if (!departureTime.isBefore(dateTime)) {
-                    trips.add(new SimpleTrip(
-                            city,
-                            connection.getDestination(),
-                            TransportationMode.valueOf(connection.getMode().toUpperCase()),
-                            connection.getPrice(),
-                            departureTime,
-                            arrivalTime
-                    ));
-                }
-            }
+        return getForCity(cities.find(city), dateTime);
+    }
+
+    @Override
+    public List<SimpleTrip> getForCity(int city, LocalDateTime dateTime) {
+        return getDepartures(city, dateTime).trips();
+    }
+
+    /**
+     * Reads a single version of the network, so that a reload cannot pair the trips with the arrivals of other timetables.
+     */
+    @Override
+    public Departures getDepartures(int city, LocalDateTime dateTime) {
+        Timetable timetable = network.timetable(city);
+        if (timetable == null) {
+            return new Departures(new ArrayList<>(), new int[0]);
         }
-        return trips;
+
+        LocalDate date = dateTime.toLocalDate();
+        int first = timetable.firstDepartureFrom(minuteOf(dateTime));
+        String name = cities.name(city);
+        List<SimpleTrip> trips = new ArrayList<>(timetable.size() - first);
+        for (int i = first; i < timetable.size(); i++) {
+            trips.add(new SimpleTrip(
+                    name,
+                    cities.name(timetable.destinations[i]),
+                    timetable.modes[i],
+                    timetable.prices[i],
+                    LocalDateTime.of(date, timetable.departureTimes[i]),
+                    LocalDateTime.of(date, timetable.arrivalTimes[i])
+            ));
+        }
+        return new Departures(trips, Arrays.copyOfRange(timetable.destinations, first, timetable.size()));
+    }
+
+    @Override
+    public CityRegistry getCities() {
+        return cities;
+    }
+
+    /**
+     * Minute of the day, rounded up to the next minute so that a departure before dateTime is never returned.
+     */
+    private static int minuteOf(LocalDateTime dateTime) {
+        LocalTime time = dateTime.toLocalTime();
+        return time.getHour() * 60 + time.getMinute() + (time.getSecond() > 0 || time.getNano() > 0 ? 1 : 0);
+    }
+
+    @Override
+    public double getMinPrice(String origin, String destination, TransportationMode mode) {
+        return lookup(Metric.PRICE, origin, destination, mode);
+    }
+
+    @Override
+    public double getMinDuration(String origin, String destination, TransportationMode mode) {
+        return lookup(Metric.DURATION, origin, destination, mode);
+    }
+
+    @Override
+    public int getMinLegs(String origin, String destination, TransportationMode mode) {
+        double legs = lookup(Metric.LEGS, origin, destination, mode);
+        return legs == Double.POSITIVE_INFINITY ? Integer.MAX_VALUE : (int) legs;
+    }
+
+    @Override
+    public boolean isReachable(String origin, String destination, TransportationMode mode) {
+        return lookup(Metric.LEGS, origin, destination, mode) != Double.POSITIVE_INFINITY;
+    }
+
+    private double lookup(Metric metric, String origin, String destination, TransportationMode mode) {
+        if (origin.equals(destination)) return 0;
+
+        Network current = network;
+        int from = cities.find(origin);
+        int to = cities.find(destination);
+        // Cities registered by other services, or after the tables were built, are not in the tables
+        if (from < 0 || to < 0 || from >= current.size() || to >= current.size()) return Double.POSITIVE_INFINITY;
+        return current.tables().get(mode).get(metric)[from][to];
     }
 
     private Map<String, List<ConnectionInfo>> loadCityData() {
@@ -59,11 +141,207 @@ public class TransportService implements ICityService<SimpleTrip> {
         }
     }
 
-    private LocalDateTime parseTime(LocalDate date, String time) {
-        return LocalDateTime.of(
-                date.getYear(), date.getMonth(), date.getDayOfMonth(),
-                Integer.parseInt(time.split(":")[0]), Integer.parseInt(time.split(":")[1])
-        );
+    /**
+     * Compile the timetables, then compute for every mode (NOT_SPECIFIED meaning any mode)
+     * the all-pairs tables of cheapest fare, shortest time in transports and fewest legs.
+     */
+    private Network buildNetwork(Map<String, List<ConnectionInfo>> cityData) {
+        Timetable[] timetables = compile(cityData);
+        int[][] adjacency = adjacency(timetables);
+
+        Map<TransportationMode, Map<Metric, double[][]>> tables = new EnumMap<>(TransportationMode.class);
+        for (TransportationMode mode : TransportationMode.values()) {
+            Map<Metric, double[][]> modeTables = new EnumMap<>(Metric.class);
+            for (Metric metric : Metric.values()) {
+                modeTables.put(metric, shortestPaths(directEdges(timetables, metric, mode), adjacency));
+            }
+            tables.put(mode, modeTables);
+        }
+        return new Network(timetables, tables);
+    }
+
+    /**
+     * Flatten the connections of each city into a timetable sorted by departure time,
+     * so that the times and modes are parsed once instead of on every query.
+     * Every city, as a departure or as a destination, is registered; the array is indexed by city id
+     * and covers all the cities registered so far (null for the cities without departures).
+     */
+    private Timetable[] compile(Map<String, List<ConnectionInfo>> cityData) {
+        Map<Integer, Timetable> compiled = new HashMap<>();
+        for (Map.Entry<String, List<ConnectionInfo>> entry : cityData.entrySet()) {
+            int city = cities.register(entry.getKey());
+            List<Departure> departures = new ArrayList<>();
+            for (ConnectionInfo connection : entry.getValue()) {
+                TransportationMode mode = TransportationMode.valueOf(connection.getMode().toUpperCase());
+                int destination = cities.register(connection.getDestination());
+                for (Schedule schedule : connection.getHours()) {
+                    departures.add(new Departure(destination, mode, connection.getPrice(),
+                            parseTime(schedule.getStart()), parseTime(schedule.getEnd())));
+                }
+            }
+            // Stable sort: departures at the same time keep the order of the file
+            departures.sort(Comparator.comparing(Departure::departure));
+            compiled.put(city, new Timetable(departures));
+        }
+
+        Timetable[] timetables = new Timetable[cities.size()];
+        compiled.forEach((city, timetable) -> timetables[city] = timetable);
+        return timetables;
+    }
+
+    /**
+     * Distinct destinations of the direct connections of each city, in increasing order.
+     */
+    private int[][] adjacency(Timetable[] timetables) {
+        int[][] adjacency = new int[timetables.length][];
+        for (int city = 0; city < timetables.length; city++) {
+            adjacency[city] = timetables[city] == null ? new int[0] : Arrays.stream(timetables[city].destinations).distinct().sorted().toArray();
+        }
+        return adjacency;
+    }
+
+    /**
+     * Best direct connection of the given mode between every pair of cities for the given metric, infinity if there is none.
+     */
+    private double[][] directEdges(Timetable[] timetables, Metric metric, TransportationMode mode) {
+        int size = timetables.length;
+        double[][] edges = new double[size][size];
+        for (double[] row : edges) {
+            Arrays.fill(row, Double.POSITIVE_INFINITY);
+        }
+
+        for (int from = 0; from < size; from++) {
+            Timetable timetable = timetables[from];
+            if (timetable == null) continue;
+            for (int i = 0; i < timetable.size(); i++) {
+                if (mode != TransportationMode.NOT_SPECIFIED && timetable.modes[i] != mode) continue;
+                int to = timetable.destinations[i];
+                edges[from][to] = Math.min(edges[from][to], metric.weight(timetable, i));
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * All pairs shortest paths with one Dijkstra per city, relaxing only the direct connections of each city.
+     */
+    private double[][] shortestPaths(double[][] edges, int[][] adjacency) {
+        int size = edges.length;
+        double[][] distances = new double[size][];
+
+        for (int source = 0; source < size; source++) {
+            double[] distance = new double[size];
+            boolean[] done = new boolean[size];
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            distance[source] = 0;
+
+            for (int step = 0; step < size; step++) {
+                int current = -1;
+                for (int city = 0; city < size; city++) {
+                    if (!done[city] && (current == -1 || distance[city] < distance[current])) current = city;
+                }
+                if (distance[current] == Double.POSITIVE_INFINITY) break;
+                done[current] = true;
+
+                for (int next : adjacency[current]) {
+                    distance[next] = Math.min(distance[next], distance[current] + edges[current][next]);
+                }
+            }
+            distances[source] = distance;
+        }
+        return distances;
+    }
+
+    private LocalTime parseTime(String time) {
+        String[] parts = time.split(":");
+        try {
+            return LocalTime.of(Integer.parseInt(parts[0]), Integer.parseInt(parts[1]));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid time in trips.json: " + time, e);
+        }
+    }
+
+    private record Network(Timetable[] timetables, Map<TransportationMode, Map<Metric, double[][]>> tables) {
+        /**
+         * Timetable of a city, null if it has no departures or is not known by this network.
+         */
+        Timetable timetable(int city) {
+            return city < 0 || city >= timetables.length ? null : timetables[city];
+        }
+
+        int size() {
+            return timetables.length;
+        }
+    }
+
+    private enum Metric {
+        PRICE, DURATION, LEGS;
+
+        double weight(Timetable timetable, int index) {
+            return switch (this) {
+                case PRICE -> timetable.prices[index];
+                // Trips arriving after midnight would have a negative duration, the bound must stay non-negative
+                case DURATION -> Math.max(0, Duration.between(timetable.departureTimes[index], timetable.arrivalTimes[index]).toMinutes());
+                case LEGS -> 1;
+            };
+        }
+    }
+
+    private record Departure(int destination, TransportationMode mode, double price, LocalTime departure,
+                             LocalTime arrival) {
+    }
+
+    /**
+     * Departures of a single city stored in parallel arrays sorted by departure minute of the day.
+     */
+    private static final class Timetable {
+        private final int[] departureMinutes;
+        private final LocalTime[] departureTimes;
+        private final LocalTime[] arrivalTimes;
+        private final int[] destinations;
+        private final TransportationMode[] modes;
+        private final double[] prices;
+
+        private Timetable(List<Departure> departures) {
+            int size = departures.size();
+            departureMinutes = new int[size];
+            departureTimes = new LocalTime[size];
+            arrivalTimes = new LocalTime[size];
+            destinations = new int[size];
+            modes = new TransportationMode[size];
+            prices = new double[size];
+
+            for (int i = 0; i < size; i++) {
+                Departure departure = departures.get(i);
+                departureMinutes[i] = departure.departure().getHour() * 60 + departure.departure().getMinute();
+                departureTimes[i] = departure.departure();
+                arrivalTimes[i] = departure.arrival();
+                destinations[i] = departure.destination();
+                modes[i] = departure.mode();
+                prices[i] = departure.price();
+            }
+        }
+
+        private int size() {
+            return departureMinutes.length;
+        }
+
+        /**
+         * Index of the first departure at or after the given minute of the day (size() if there is none).
+         */
+        private int firstDepartureFrom(int minute) {
+            int low = 0;
+            int high = departureMinutes.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (departureMinutes[middle] < minute) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
     }
 
     // Nested classes for JSON deserialization
@@ -0,0 +1,142 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.services.ScalarDistanceKernel.Center;
+import com.testlog.projet.types.LatLng;
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static com.testlog.projet.services.ScalarDistanceKernel.*;
+
+/**
+ * Kernel computing the haversines of several points per instruction with the Vector API (jdk.incubator.vector).
+ * The lanes do the same operations in the same order as ScalarDistanceKernel, so 'within' gives identical results.
+ * Only the points very close to the circle, and the points left after the last full vector, are handled one by one.
+ * Only built with the maven profile "vector" and needs '--add-modules jdk.incubator.vector',
+ * use DistanceKernels.best() to fall back to the scalar kernel without them.
+ */
+public class VectorDistanceKernel implements IDistanceKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public double[] distances(LatLng center, CoordinateBuffer points) {
+        Center c = Center.of(center);
+        double[] distances = new double[points.size];
+
+        int bound = SPECIES.loopBound(points.size);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            haversines(c, points, i)
+                    .lanewise(VectorOperators.SQRT)
+                    .lanewise(VectorOperators.ASIN)
+                    .mul(2 * EARTH_RADIUS)
+                    .intoArray(distances, i);
+        }
+        for (; i < points.size; i++) {
+            distances[i] = distance(haversine(c, points, i));
+        }
+        return distances;
+    }
+
+    @Override
+    public BitSet within(LatLng center, CoordinateBuffer points, double radius) {
+        BitSet within = new BitSet(points.size);
+        if (radius < 0) return within;
+        if (radius >= Math.PI * EARTH_RADIUS) {
+            within.set(0, points.size);
+            return within;
+        }
+
+        Center c = Center.of(center);
+        double limit = limit(radius);
+        double inside = limit * (1 - MARGIN);
+        double outside = limit * (1 + MARGIN);
+
+        // The number of lanes divides 64, so the lanes of a vector always fall in the same word
+        long[] words = new long[(points.size + 63) / 64];
+        int bound = SPECIES.loopBound(points.size);
+        int i = 0;
+        for (; i < bound; i += SPECIES.length()) {
+            DoubleVector haversines = haversines(c, points, i);
+            VectorMask<Double> in = haversines.lt(inside);
+            VectorMask<Double> close = in.or(haversines.compare(VectorOperators.GT, outside)).not();
+
+            long bits = in.toLong();
+            for (long rest = close.toLong(); rest != 0; rest &= rest - 1) {
+                int lane = Long.numberOfTrailingZeros(rest);
+                if (distance(haversines.lane(lane)) <= radius) bits |= 1L << lane;
+            }
+            words[i >> 6] |= bits << (i & 63);
+        }
+        for (; i < points.size; i++) {
+            if (isWithin(haversine(c, points, i), limit, radius)) words[i >> 6] |= 1L << (i & 63);
+        }
+
+        within.or(BitSet.valueOf(words));
+        return within;
+    }
+
+    @Override
+    public int[] within(LatLng center, CoordinateBuffer points, int[] indexes, double radius) {
+        if (radius < 0) return new int[0];
+        if (radius >= Math.PI * EARTH_RADIUS) return indexes.clone();
+
+        Center c = Center.of(center);
+        double limit = limit(radius);
+        double inside = limit * (1 - MARGIN);
+        double outside = limit * (1 + MARGIN);
+
+        int[] within = new int[indexes.length];
+        int count = 0;
+        int bound = SPECIES.loopBound(indexes.length);
+        int k = 0;
+        for (; k < bound; k += SPECIES.length()) {
+            // Gathers the points of the candidates, scattered in the buffer
+            DoubleVector haversines = haversines(c, points, indexes, k);
+            VectorMask<Double> in = haversines.lt(inside);
+            VectorMask<Double> close = in.or(haversines.compare(VectorOperators.GT, outside)).not();
+            if (!in.anyTrue() && !close.anyTrue()) continue;
+
+            for (int lane = 0; lane < SPECIES.length(); lane++) {
+                if (in.laneIsSet(lane) || close.laneIsSet(lane) && distance(haversines.lane(lane)) <= radius) {
+                    within[count++] = indexes[k + lane];
+                }
+            }
+        }
+        for (; k < indexes.length; k++) {
+            if (isWithin(haversine(c, points, indexes[k]), limit, radius)) within[count++] = indexes[k];
+        }
+        return Arrays.copyOf(within, count);
+    }
+
+    private static DoubleVector haversines(Center c, CoordinateBuffer points, int i) {
+        DoubleVector sinHalfDLat = DoubleVector.fromArray(SPECIES, points.sinHalfLat, i).mul(c.cosHalfLat())
+                .sub(DoubleVector.fromArray(SPECIES, points.cosHalfLat, i).mul(c.sinHalfLat()));
+        DoubleVector sinHalfDLng = DoubleVector.fromArray(SPECIES, points.sinHalfLng, i).mul(c.cosHalfLng())
+                .sub(DoubleVector.fromArray(SPECIES, points.cosHalfLng, i).mul(c.sinHalfLng()));
+        DoubleVector cosLats = DoubleVector.fromArray(SPECIES, points.cosLat, i).mul(c.cosLat());
+
+        return sinHalfDLat.mul(sinHalfDLat)
+                .add(cosLats.mul(sinHalfDLng).mul(sinHalfDLng))
+                .min(1);
+    }
+
+    /**
+     * Same as haversines, for the points at indexes[k], ..., indexes[k + lanes - 1].
+     */
+    private static DoubleVector haversines(Center c, CoordinateBuffer points, int[] indexes, int k) {
+        DoubleVector sinHalfDLat = DoubleVector.fromArray(SPECIES, points.sinHalfLat, 0, indexes, k).mul(c.cosHalfLat())
+                .sub(DoubleVector.fromArray(SPECIES, points.cosHalfLat, 0, indexes, k).mul(c.sinHalfLat()));
+        DoubleVector sinHalfDLng = DoubleVector.fromArray(SPECIES, points.sinHalfLng, 0, indexes, k).mul(c.cosHalfLng())
+                .sub(DoubleVector.fromArray(SPECIES, points.cosHalfLng, 0, indexes, k).mul(c.sinHalfLng()));
+        DoubleVector cosLats = DoubleVector.fromArray(SPECIES, points.cosLat, 0, indexes, k).mul(c.cosLat());
+
+        return sinHalfDLat.mul(sinHalfDLat)
+                .add(cosLats.mul(sinHalfDLng).mul(sinHalfDLng))
+                .min(1);
+    }
+}
@@ -0,0 +1,58 @@
+package com.testlog.projet.types;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Days of the week when an activity is open, stored as a 7-bit mask (bit d for day d, 0 = Monday).
+ * It is the List<Boolean> of Activity.availability, without a boxed flag per day. Instances are shared.
+ */
+public final class Availability extends AbstractList<Boolean> implements RandomAccess {
+    private static final Availability[] INSTANCES = new Availability[1 << 7];
+
+    static {
+        for (int mask = 0; mask < INSTANCES.length; mask++) {
+            INSTANCES[mask] = new Availability((byte) mask);
+        }
+    }
+
+    private final byte mask;
+
+    private Availability(byte mask) {
+        this.mask = mask;
+    }
+
+    public static Availability of(byte mask) {
+        return INSTANCES[mask & 0x7F];
+    }
+
+    /**
+     * Mask of a list of days (missing and null days are closed).
+     */
+    public static byte mask(List<Boolean> days) {
+        if (days instanceof Availability availability) return availability.mask;
+
+        int mask = 0;
+        for (int d = 0; d < Math.min(days.size(), 7); d++) {
+            if (Boolean.TRUE.equals(days.get(d))) mask |= 1 << d;
+        }
+        return (byte) mask;
+    }
+
+    public byte mask() {
+        return mask;
+    }
+
+    @Override
+    public Boolean get(int index) {
+        Objects.checkIndex(index, 7);
+        return (mask >> index & 1) != 0;
+    }
+
+    @Override
+    public int size() {
+        return 7;
+    }
+}
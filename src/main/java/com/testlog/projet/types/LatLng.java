@@ -1,17 +1,127 @@
 package com.testlog.projet.types;
 
-public record LatLng(Double lat, Double lng) {
+import java.util.List;
+
+/**
+ * Coordinates in degrees. Behaves like a record (lat, lng), but the sines and cosines needed by the haversine formula
+ * are computed once when the point is created, so a distance only costs a few multiplications, a square root and an arcsine.
+ */
+public final class LatLng {
+    private static final double EARTH_RADIUS = 6371.0;
+
+    private final double lat;
+    private final double lng;
+    // Half angles, in radians: sin((a - b) / 2) is computed from them without calling sin
+    private final double sinHalfLat;
+    private final double cosHalfLat;
+    private final double sinHalfLng;
+    private final double cosHalfLng;
+    private final double cosLat;
+
+    public LatLng(double lat, double lng) {
+        this.lat = lat;
+        this.lng = lng;
+
+        double halfLat = Math.toRadians(lat) / 2;
+        double halfLng = Math.toRadians(lng) / 2;
+        this.sinHalfLat = Math.sin(halfLat);
+        this.cosHalfLat = Math.cos(halfLat);
+        this.sinHalfLng = Math.sin(halfLng);
+        this.cosHalfLng = Math.cos(halfLng);
+        this.cosLat = Math.cos(Math.toRadians(lat));
+    }
+
+    public double lat() {
+        return lat;
+    }
+
+    public double lng() {
+        return lng;
+    }
+
+    /**
+     * Cached sines and cosines, for the distance kernels that store many points column by column.
+     */
+    public double sinHalfLat() {
+        return sinHalfLat;
+    }
+
+    public double cosHalfLat() {
+        return cosHalfLat;
+    }
+
+    public double sinHalfLng() {
+        return sinHalfLng;
+    }
+
+    public double cosHalfLng() {
+        return cosHalfLng;
+    }
+
+    public double cosLat() {
+        return cosLat;
+    }
+
+    /**
+     * Great-circle distance in km (haversine formula).
+     */
     public double distance(LatLng other) {
-        double lat1 = Math.toRadians(lat);
-        double lng1 = Math.toRadians(lng);
-        double lat2 = Math.toRadians(other.lat);
-        double lng2 = Math.toRadians(other.lng);
+        return 2 * EARTH_RADIUS * Math.asin(Math.sqrt(haversine(other)));
+    }
+
+    /**
+     * Distances in km from this point to each of the others, in the same order.
+     */
+    public double[] distances(List<LatLng> others) {
+        double[] distances = new double[others.size()];
+        for (int i = 0; i < distances.length; i++) {
+            distances[i] = distance(others.get(i));
+        }
+        return distances;
+    }
+
+    /**
+     * Same as distance(other) <= radius, but most points are accepted or rejected without computing the distance:
+     * first by their difference of latitude (a lower bound of the distance), then by comparing the haversine with
+     * the one of the radius. Only the points very close to the circle go through the exact distance.
+     */
+    public boolean isWithin(LatLng other, double radius) {
+        if (radius < 0) return false;
+        if (radius >= Math.PI * EARTH_RADIUS) return true;
 
-        double dlat = lat2 - lat1;
-        double dlng = lng2 - lng1;
+        double angle = radius / EARTH_RADIUS;
+        if (Math.abs(Math.toRadians(lat - other.lat)) > angle * (1 + 1e-12)) return false;
 
-        double sqrtArg = 1 - Math.cos(dlat) + Math.cos(lat1) * Math.cos(lat2) * (1 - Math.cos(dlng));
+        double limit = Math.sin(angle / 2);
+        limit *= limit;
+        double haversine = haversine(other);
+        if (haversine < limit * (1 - 1e-12)) return true;
+        if (haversine > limit * (1 + 1e-12)) return false;
+        return distance(other) <= radius;
+    }
+
+    /**
+     * sin²(dlat / 2) + cos(lat1) cos(lat2) sin²(dlng / 2), with the sines of the half differences expanded
+     * from the cached half angles. Bounded by 1 to absorb rounding for antipodal points.
+     */
+    private double haversine(LatLng other) {
+        double sinHalfDLat = other.sinHalfLat * cosHalfLat - other.cosHalfLat * sinHalfLat;
+        double sinHalfDLng = other.sinHalfLng * cosHalfLng - other.cosHalfLng * sinHalfLng;
+        return Math.min(1, sinHalfDLat * sinHalfDLat + cosLat * other.cosLat * sinHalfDLng * sinHalfDLng);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof LatLng other && Double.compare(lat, other.lat) == 0 && Double.compare(lng, other.lng) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Double.hashCode(lat) + Double.hashCode(lng);
+    }
 
-        return 2 * 6371.0 * Math.asin(Math.sqrt(sqrtArg / 2));
+    @Override
+    public String toString() {
+        return "LatLng[lat=" + lat + ", lng=" + lng + "]";
     }
 }
@@ -2,8 +2,15 @@ package com.testlog.projet.types;
 
 import java.util.List;
 
+/**
+ * @param optimal false if the stay was planned under a deadline and a better one may exist
+ */
 public record Package(List<Activity> activities, Hotel hotel, ComposedTrip firstTrip, ComposedTrip returnTrip,
-                      double totalPrice) {
+                      double totalPrice, boolean optimal) {
+    public Package(List<Activity> activities, Hotel hotel, ComposedTrip firstTrip, ComposedTrip returnTrip, double totalPrice) {
+        this(activities, hotel, firstTrip, returnTrip, totalPrice, true);
+    }
+
     @Override
     public String toString() {
         StringBuilder activitiesString = new StringBuilder();
@@ -17,6 +24,7 @@ public record Package(List<Activity> activities, Hotel hotel, ComposedTrip first
                 "\n firstTrip=" + firstTrip +
                 "\n returnTrip=" + returnTrip +
                 "\n totalPrice=" + totalPrice +
+                (optimal ? "" : "\n optimal=false") +
                 "\n}";
     }
 }
\ No newline at end of file
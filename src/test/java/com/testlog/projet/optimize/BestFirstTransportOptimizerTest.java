@@ -0,0 +1,122 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.ITransportBounds;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class BestFirstTransportOptimizerTest {
+
+    final LocalDateTime departure = LocalDateTime.parse("2025-01-08T08:00:00"); // Wednesday
+    final TransportCriteria transportCriteriaPrice = new TransportCriteria(TransportationMode.NOT_SPECIFIED, true);
+    final TransportCriteria transportCriteriaDuration = new TransportCriteria(TransportationMode.NOT_SPECIFIED, false);
+    final TransportCriteria transportCriteriaPlane = new TransportCriteria(TransportationMode.PLANE, true);
+    final double maxPrice = 2000.;
+    ICityService<SimpleTrip> transportService;
+    ITransportBounds transportBounds;
+    BestFirstTransportOptimizer transportOptimizer;
+    SimpleTrip directTrain;
+    SimpleTrip directPlane;
+    SimpleTrip toStop;
+    SimpleTrip fromStop;
+
+    @BeforeEach
+    public void setUp() {
+        transportService = mock(ICityService.class);
+        transportBounds = mock(ITransportBounds.class);
+        transportOptimizer = new BestFirstTransportOptimizer(transportService, transportBounds);
+
+        directTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 100., departure, departure.plusHours(3));
+        directPlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 300., departure, departure.plusHours(1));
+        toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 20., departure, departure.plusHours(1));
+        fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 20., departure.plusHours(1), departure.plusHours(5));
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferPrice() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, directPlane, toStop));
+        when(transportService.getForCity("stop", departure.plusHours(1))).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertEquals(List.of(toStop, fromStop), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferDuration() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, directPlane, toStop));
+        when(transportService.getForCity("stop", departure.plusHours(1))).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+
+        assertEquals(List.of(directPlane), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferDuration_withinBudget() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, directPlane, toStop));
+        when(transportService.getForCity("stop", departure.plusHours(1))).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, 200.);
+
+        assertEquals(List.of(directTrain), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withPreferredMode() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, directPlane, toStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPlane, maxPrice);
+
+        assertEquals(List.of(directPlane), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_prunesBranchesOverBudget() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, toStop));
+        when(transportBounds.getMinPrice("stop", "destination", TransportationMode.NOT_SPECIFIED)).thenReturn(500.);
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, 400.);
+
+        assertEquals(List.of(directTrain), result.getTrips());
+        verify(transportService, never()).getForCity(eq("stop"), any());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_stopsOnceOptimalIsFound() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, toStop));
+        // The stop is at least 200 away from the destination, so the direct train is proven optimal first
+        when(transportBounds.getMinPrice("stop", "destination", TransportationMode.NOT_SPECIFIED)).thenReturn(200.);
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertEquals(List.of(directTrain), result.getTrips());
+        verify(transportService, never()).getForCity(eq("stop"), any());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withUnreachableDestination() {
+        when(transportBounds.getMinPrice("origin", "destination", TransportationMode.NOT_SPECIFIED)).thenReturn(Double.POSITIVE_INFINITY);
+
+        assertThrows(IllegalArgumentException.class, () -> transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, maxPrice));
+        verify(transportService, never()).getForCity(any(), any());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withNotEnoughBudget() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain));
+
+        assertThrows(IllegalArgumentException.class, () -> transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, 90.));
+    }
+}
@@ -0,0 +1,256 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.AdditionalCriteria;
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+public class ConnectionScanOptimizerTest {
+
+    final LocalDateTime departure = LocalDateTime.parse("2025-01-08T08:00:00"); // Wednesday
+    final Duration duration = Duration.ofDays(1);
+    final LocalDateTime returnDate = departure.plus(duration);
+    final TransportCriteria transportCriteriaTrain = new TransportCriteria(TransportationMode.TRAIN, true);
+    final TransportCriteria transportCriteriaPlane = new TransportCriteria(TransportationMode.PLANE, true);
+    final TransportCriteria transportCriteriaNotSpecified = new TransportCriteria(TransportationMode.NOT_SPECIFIED, true);
+    final TransportCriteria transportCriteriaDuration = new TransportCriteria(TransportationMode.NOT_SPECIFIED, false);
+    final double maxPrice = 2000.;
+    final AdditionalCriteria other = new AdditionalCriteria(departure, maxPrice, duration, "origin", "destination");
+    ICityService<SimpleTrip> transportService;
+    ConnectionScanOptimizer transportOptimizer;
+    SimpleTrip forwardTripTrain;
+    SimpleTrip backwardTripTrain;
+    SimpleTrip forwardTripPlane;
+    SimpleTrip backwardTripPlane;
+
+    @BeforeEach
+    public void setUp() {
+        transportService = mock(ICityService.class);
+        transportOptimizer = new ConnectionScanOptimizer(transportService);
+
+        forwardTripTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 100., departure, departure.plusHours(2));
+        backwardTripTrain = new SimpleTrip("destination", "origin", TransportationMode.TRAIN, 100., returnDate, returnDate.plusHours(2));
+        forwardTripPlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 100., departure, departure.plusHours(1));
+        backwardTripPlane = new SimpleTrip("destination", "origin", TransportationMode.PLANE, 300., returnDate, returnDate.plusHours(1));
+    }
+
+    @Test
+    public void testGetOptimizedTrip_calls() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain, backwardTripPlane));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaTrain, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripTrain), resultForward.getTrips());
+        assertEquals(List.of(backwardTripTrain), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_calls_for_unspecifiedTransportMode() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain, backwardTripPlane));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaNotSpecified, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaNotSpecified, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripTrain), resultForward.getTrips());
+        assertEquals(List.of(backwardTripTrain), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_calls_for_durationOverPrice() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain, backwardTripPlane));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaDuration, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripPlane), resultForward.getTrips());
+        assertEquals(List.of(backwardTripPlane), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withNotEnoughBudgetForTransport() {
+        double maxPrice = 90.;
+        AdditionalCriteria other = new AdditionalCriteria(departure, maxPrice, duration, "origin", "destination");
+
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain));
+
+        assertThrows(IllegalArgumentException.class, () -> {
+            transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+        });
+    }
+
+    @Test
+    public void testGetOptimizedTrip_result_for_TrainCriteria() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain, backwardTripPlane));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaTrain, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripTrain), resultForward.getTrips());
+        assertEquals(List.of(backwardTripTrain), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_result_for_PlaneCriteria() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripPlane, forwardTripTrain));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripPlane, backwardTripTrain));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPlane, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaPlane, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripPlane), resultForward.getTrips());
+        assertEquals(List.of(backwardTripPlane), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_noHotel_shouldReturnOnlyTransport() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+        when(transportService.getForCity("destination", returnDate)).thenReturn(List.of(backwardTripTrain, backwardTripPlane));
+
+        ComposedTrip resultForward = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+        ComposedTrip resultBackward = transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteriaTrain, maxPrice - 100.);
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService).getForCity("destination", returnDate);
+
+        assertEquals(List.of(forwardTripTrain), resultForward.getTrips());
+        assertEquals(List.of(backwardTripTrain), resultBackward.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withTotalPrice_equalBudget() {
+        SimpleTrip trip = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, maxPrice, departure, departure.plusHours(2));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(trip));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(trip), result.getTrips());
+
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withConnection_cheaperThanDirect() {
+        SimpleTrip toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 30., departure, departure.plusHours(1));
+        SimpleTrip fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(toStop, fromStop), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withMissedConnection() {
+        SimpleTrip toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 30., departure, departure.plusHours(3));
+        SimpleTrip fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(4));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(forwardTripTrain), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_durationOverPrice_withinBudget() {
+        // The plane is faster but only the train fits in the budget
+        SimpleTrip expensivePlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 500., departure, departure.plusHours(1));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, expensivePlane));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, 200.);
+
+        assertEquals(List.of(forwardTripTrain), result.getTrips());
+    }
+
+    @Test
+    public void testGetEarliestArrivalTrip() {
+        SimpleTrip slowTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 10., departure, departure.plusHours(5));
+        SimpleTrip toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 30., departure, departure.plusHours(1));
+        SimpleTrip fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(slowTrain, toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(fromStop));
+
+        ComposedTrip result = transportOptimizer.getEarliestArrivalTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(toStop, fromStop), result.getTrips());
+    }
+
+    @Test
+    public void testGetParetoTrips() {
+        SimpleTrip expensivePlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 500., departure, departure.plusHours(1));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, expensivePlane));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaNotSpecified, maxPrice);
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(forwardTripTrain), result.get(0).getTrips());
+        assertEquals(List.of(expensivePlane), result.get(1).getTrips());
+    }
+
+    @Test
+    public void testGetDepartureProfile() {
+        SimpleTrip slowCheap = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 50., departure, departure.plusHours(4));
+        SimpleTrip fastExpensive = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 200., departure.plusHours(2), departure.plusHours(3));
+        SimpleTrip outsideWindow = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 10., departure.plusHours(5), departure.plusHours(6));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(slowCheap, fastExpensive, outsideWindow));
+
+        DepartureProfile profile = transportOptimizer.getDepartureProfile("origin", "destination", departure, departure.plusHours(4), transportCriteriaTrain);
+
+        assertEquals(List.of(fastExpensive), profile.getFastestTrip(departure).getTrips());
+        assertEquals(List.of(fastExpensive), profile.getFastestTrip(departure.plusHours(1)).getTrips());
+        assertEquals(List.of(slowCheap), profile.getCheapestTrip(departure).getTrips());
+        assertEquals(List.of(fastExpensive), profile.getCheapestTrip(departure.plusMinutes(1)).getTrips());
+        assertNull(profile.getFastestTrip(departure.plusHours(3)));
+        assertNull(profile.getCheapestTrip(departure.plusHours(3)));
+    }
+
+    @Test
+    public void testGetDepartureProfile_withConnection() {
+        SimpleTrip direct = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 50., departure, departure.plusHours(4));
+        SimpleTrip toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 10., departure.plusHours(1), departure.plusHours(2));
+        SimpleTrip fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 10., departure.plusHours(2), departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(direct, toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(fromStop));
+
+        DepartureProfile profile = transportOptimizer.getDepartureProfile("origin", "destination", departure, departure.plusHours(4), transportCriteriaTrain);
+
+        // Leaving later through the stop is both faster and cheaper, so the direct trip is never the best one
+        assertEquals(List.of(List.of(toStop, fromStop)), profile.getFastestTrips().stream().map(ComposedTrip::getTrips).toList());
+        assertEquals(List.of(List.of(toStop, fromStop)), profile.getCheapestTrips().stream().map(ComposedTrip::getTrips).toList());
+        assertEquals(20., profile.getCheapestTrip(departure).getPrice());
+    }
+}
@@ -0,0 +1,111 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class KShortestTripsTest {
+
+    final LocalDateTime departure = LocalDateTime.parse("2025-01-08T08:00:00"); // Wednesday
+    final TransportCriteria priceCriteria = new TransportCriteria(TransportationMode.NOT_SPECIFIED, true);
+    final TransportCriteria durationCriteria = new TransportCriteria(TransportationMode.NOT_SPECIFIED, false);
+    final double maxPrice = 2000.;
+    ICityService<SimpleTrip> transportService;
+    TransportOptimizer transportOptimizer;
+    SimpleTrip directPlane;
+    SimpleTrip directTrain;
+    SimpleTrip toStopover;
+    SimpleTrip fromStopover;
+
+    @BeforeEach
+    public void setUp() {
+        transportService = mock(ICityService.class);
+        transportOptimizer = new TransportOptimizer(transportService);
+
+        directPlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 300., departure, departure.plusHours(1));
+        directTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 100., departure, departure.plusHours(4));
+        toStopover = new SimpleTrip("origin", "stopover", TransportationMode.TRAIN, 30., departure, departure.plusHours(2));
+        fromStopover = new SimpleTrip("stopover", "destination", TransportationMode.TRAIN, 40., departure.plusHours(3), departure.plusHours(5));
+
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directPlane, directTrain, toStopover));
+        when(transportService.getForCity("stopover", departure.plusHours(2))).thenReturn(List.of(fromStopover));
+    }
+
+    @Test
+    public void testGetRankedTrips_byPrice() {
+        List<ComposedTrip> trips = transportOptimizer.getRankedTrips("origin", "destination", departure, priceCriteria, maxPrice).toList();
+
+        assertEquals(3, trips.size());
+        assertEquals(List.of(toStopover, fromStopover), trips.get(0).getTrips());
+        assertEquals(List.of(directTrain), trips.get(1).getTrips());
+        assertEquals(List.of(directPlane), trips.get(2).getTrips());
+    }
+
+    @Test
+    public void testGetRankedTrips_byDuration() {
+        List<ComposedTrip> trips = transportOptimizer.getRankedTrips("origin", "destination", departure, durationCriteria, maxPrice).toList();
+
+        assertEquals(3, trips.size());
+        assertEquals(List.of(directPlane), trips.get(0).getTrips());
+        // Both take 4 hours in transports, ties keep the order of the timetable
+        assertEquals(List.of(directTrain), trips.get(1).getTrips());
+        assertEquals(List.of(toStopover, fromStopover), trips.get(2).getTrips());
+    }
+
+    @Test
+    public void testGetRankedTrips_withBudget_shouldSkipExpensiveTrips() {
+        List<ComposedTrip> trips = transportOptimizer.getRankedTrips("origin", "destination", departure, durationCriteria, 100.).toList();
+
+        assertEquals(2, trips.size());
+        assertEquals(List.of(directTrain), trips.get(0).getTrips());
+        assertEquals(List.of(toStopover, fromStopover), trips.get(1).getTrips());
+    }
+
+    @Test
+    public void testGetRankedTrips_firstTrip_shouldMatchOptimizedTrip() {
+        for (TransportCriteria criteria : List.of(priceCriteria, durationCriteria)) {
+            ComposedTrip first = transportOptimizer.getRankedTrips("origin", "destination", departure, criteria, maxPrice).findFirst().orElseThrow();
+            ComposedTrip optimal = transportOptimizer.getOptimizedTrip("origin", "destination", departure, criteria, maxPrice);
+
+            assertEquals(optimal.getTrips(), first.getTrips());
+        }
+    }
+
+    @Test
+    public void testGetRankedTrips_shouldOnlySearchConsumedTrips() {
+        SimpleTrip toDeadEnd = new SimpleTrip("origin", "deadEnd", TransportationMode.TRAIN, 500., departure, departure.plusHours(1));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(directTrain, toDeadEnd));
+
+        transportOptimizer.getRankedTrips("origin", "destination", departure, priceCriteria, maxPrice).findFirst();
+
+        verify(transportService).getForCity("origin", departure);
+        verify(transportService, never()).getForCity("deadEnd", departure.plusHours(1));
+    }
+
+    @Test
+    public void testGetRankedTrips_withoutTrips_shouldBeEmpty() {
+        when(transportService.getForCity(any(), any())).thenReturn(List.of());
+
+        assertTrue(transportOptimizer.getRankedTrips("origin", "destination", departure, priceCriteria, maxPrice).findAny().isEmpty());
+    }
+
+    @Test
+    public void testGetRankedTrips_sameCity_shouldReturnEmptyTrip() {
+        List<ComposedTrip> trips = transportOptimizer.getRankedTrips("origin", "origin", departure, priceCriteria, maxPrice).toList();
+
+        assertEquals(1, trips.size());
+        assertTrue(trips.getFirst().getTrips().isEmpty());
+    }
+}
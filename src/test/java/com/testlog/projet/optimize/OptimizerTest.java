@@ -3,7 +3,9 @@ package com.testlog.projet.optimize;
 import com.testlog.projet.criteria.AdditionalCriteria;
 import com.testlog.projet.criteria.CityCriteria;
 import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.optimize.city.CityPlan;
 import com.testlog.projet.optimize.city.ICityOptimizer;
+import com.testlog.projet.services.ITransportBounds;
 import com.testlog.projet.types.Package;
 import com.testlog.projet.types.*;
 import org.junit.jupiter.api.BeforeEach;
@@ -13,9 +15,13 @@ import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.*;
 
 public class OptimizerTest {
@@ -35,7 +41,8 @@ public class OptimizerTest {
     @BeforeEach
     public void setUp() {
         transportOptimizer = mock(ITransportOptimizer.class);
-        cityOptimizer = mock(ICityOptimizer.class);
+        // The default plan method goes through the stubbed optimize
+        cityOptimizer = mock(ICityOptimizer.class, withSettings().defaultAnswer(CALLS_REAL_METHODS));
         optimizer = new Optimizer(transportOptimizer, cityOptimizer);
     }
 
@@ -64,6 +71,29 @@ public class OptimizerTest {
         verify(cityOptimizer).getTotalPrice(cityTrip, 1);
     }
 
+    @Test
+    public void testSolve_stayCutByDeadline_isNotOptimal() {
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice)).thenReturn(forward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice - 100.)).thenReturn(backward);
+
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(100.);
+        when(backward.getPrice()).thenReturn(200.);
+
+        // doReturn: stubbing with when() would call the real default method
+        doReturn(new CityPlan(null, Collections.emptyList(), false)).when(cityOptimizer).plan(anyString(), anyInt(), anyInt(), anyDouble(), any(), any());
+        when(cityOptimizer.getTotalPrice(any(), anyInt())).thenReturn(50.);
+
+        Package result = optimizer.solve(transportCriteria, cityCriteria, other);
+
+        assertFalse(result.optimal());
+        assertEquals(350., result.totalPrice());
+    }
+
     @Test
     public void testSolve_withMultipleDays() {
         Duration duration = Duration.ofDays(2);
@@ -187,4 +217,159 @@ public class OptimizerTest {
 
         verify(cityOptimizer, never()).optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testSolve_withUnreachableDestination_shouldNotSearch() {
+        ITransportBounds transportBounds = mock(ITransportBounds.class);
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, transportBounds);
+        when(transportBounds.isReachable("origin", "destination", TransportationMode.TRAIN)).thenReturn(true);
+        when(transportBounds.isReachable("destination", "origin", TransportationMode.TRAIN)).thenReturn(false);
+
+        assertThrows(IllegalArgumentException.class, () -> optimizer.solve(transportCriteria, cityCriteria, other));
+
+        verify(transportOptimizer, never()).getOptimizedTrip(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testSolve_withCheapestFaresOverBudget_shouldNotSearch() {
+        ITransportBounds transportBounds = mock(ITransportBounds.class);
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, transportBounds);
+        when(transportBounds.isReachable(anyString(), anyString(), any())).thenReturn(true);
+        when(transportBounds.getMinPrice("origin", "destination", TransportationMode.TRAIN)).thenReturn(600.);
+        when(transportBounds.getMinPrice("destination", "origin", TransportationMode.TRAIN)).thenReturn(500.);
+
+        assertThrows(IllegalArgumentException.class, () -> optimizer.solve(transportCriteria, cityCriteria, other));
+
+        verify(transportOptimizer, never()).getOptimizedTrip(any(), any(), any(), any(), any());
+    }
+
+    @Test
+    public void testSolve_withFeasibleRequest_shouldSearch() {
+        ITransportBounds transportBounds = mock(ITransportBounds.class);
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, transportBounds);
+        when(transportBounds.isReachable(anyString(), anyString(), any())).thenReturn(true);
+        when(transportBounds.getMinPrice(anyString(), anyString(), any())).thenReturn(100.);
+
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice)).thenReturn(forward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice - 100.)).thenReturn(backward);
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(100.);
+        when(backward.getPrice()).thenReturn(200.);
+        when(cityOptimizer.optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any())).thenReturn(new Pair<>(null, Collections.emptyList()));
+
+        optimizer.solve(transportCriteria, cityCriteria, other);
+
+        verify(transportOptimizer).getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice);
+    }
+
+    @Test
+    public void testSolve_concurrentWithinBudget_shouldSearchEachTripOnce() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, null, executor);
+        Pair<Hotel, List<Activity>> cityTrip = new Pair<>(null, Collections.emptyList());
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice)).thenReturn(forward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice)).thenReturn(backward);
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(100.);
+        when(backward.getPrice()).thenReturn(200.);
+        when(cityOptimizer.optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any())).thenReturn(cityTrip);
+        when(cityOptimizer.getTotalPrice(any(), anyInt())).thenReturn(50.);
+
+        Package result = optimizer.solve(transportCriteria, cityCriteria, other);
+        executor.shutdown();
+
+        assertEquals(350., result.totalPrice());
+        verify(transportOptimizer, times(2)).getOptimizedTrip(any(), any(), any(), any(), any());
+        verify(cityOptimizer).optimize("destination", 2, 1, maxPrice - 300., cityCriteria, departure);
+    }
+
+    @Test
+    public void testSolve_concurrentOverBudget_shouldSearchReturnTripAgain() {
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, null, Runnable::run);
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip expensiveBackward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice)).thenReturn(forward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice)).thenReturn(expensiveBackward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice - 600.)).thenReturn(backward);
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(600.);
+        when(expensiveBackward.getPrice()).thenReturn(500.);
+        when(backward.getPrice()).thenReturn(300.);
+        when(cityOptimizer.optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any())).thenReturn(new Pair<>(null, Collections.emptyList()));
+
+        Package result = optimizer.solve(transportCriteria, cityCriteria, other);
+
+        assertEquals(backward, result.returnTrip());
+        verify(transportOptimizer).getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice - 600.);
+        verify(cityOptimizer).optimize("destination", 2, 1, maxPrice - 900., cityCriteria, departure);
+    }
+
+    @Test
+    public void testSolve_concurrentWithoutForwardTrip_shouldThrow() {
+        Optimizer optimizer = new Optimizer(transportOptimizer, cityOptimizer, null, Runnable::run);
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice))
+                .thenThrow(new IllegalArgumentException("No trips available within the budget"));
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice)).thenReturn(mock(ComposedTrip.class));
+
+        assertThrows(IllegalArgumentException.class, () -> optimizer.solve(transportCriteria, cityCriteria, other));
+
+        verify(cityOptimizer, never()).optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any());
+    }
+
+    @Test
+    public void testSolveAll_shouldReturnOnePackagePerStay() {
+        Hotel hotel = new Hotel("destination", new LatLng(1., 1.), 3, "Hotel", 100, "Address");
+        Pair<Hotel, List<Activity>> stayA = new Pair<>(hotel, List.of());
+        Pair<Hotel, List<Activity>> stayB = new Pair<>(hotel, List.of());
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+
+        when(transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteria, maxPrice)).thenReturn(forward);
+        when(transportOptimizer.getOptimizedTrip("destination", "origin", returnDate, transportCriteria, maxPrice - 100.)).thenReturn(backward);
+
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(100.);
+        when(backward.getPrice()).thenReturn(200.);
+
+        when(cityOptimizer.optimizeAll("destination", 2, 1, maxPrice - 300., cityCriteria, departure, 5)).thenReturn(List.of(stayA, stayB));
+        when(cityOptimizer.getTotalPrice(any(), anyInt())).thenReturn(50.);
+
+        List<Package> result = optimizer.solveAll(transportCriteria, cityCriteria, other, 5);
+
+        assertEquals(2, result.size());
+        for (Package p : result) {
+            assertEquals(350., p.totalPrice());
+            assertEquals(hotel, p.hotel());
+        }
+        verify(cityOptimizer, never()).optimize(anyString(), anyInt(), anyInt(), anyDouble(), any(), any());
+    }
+
+    @Test
+    public void testSolveAll_withNotEnoughBudgetForActivities_shouldReturnTransportOnly() {
+        ComposedTrip forward = mock(ComposedTrip.class);
+        ComposedTrip backward = mock(ComposedTrip.class);
+
+        when(transportOptimizer.getOptimizedTrip(anyString(), anyString(), any(), any(), anyDouble())).thenReturn(forward, backward);
+        when(forward.getArrivalTime()).thenReturn(departure);
+        when(backward.getDepartureTime()).thenReturn(returnDate);
+        when(forward.getPrice()).thenReturn(500.);
+        when(backward.getPrice()).thenReturn(500.);
+
+        List<Package> result = optimizer.solveAll(transportCriteria, cityCriteria, other, 5);
+
+        assertEquals(1, result.size());
+        assertNull(result.getFirst().hotel());
+        verify(cityOptimizer, never()).optimizeAll(anyString(), anyInt(), anyInt(), anyDouble(), any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,138 @@
+package com.testlog.projet.optimize;
+
+import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.ComposedTrip;
+import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class RaptorOptimizerTest {
+
+    final LocalDateTime departure = LocalDateTime.parse("2025-01-08T08:00:00"); // Wednesday
+    final TransportCriteria transportCriteriaPrice = new TransportCriteria(TransportationMode.NOT_SPECIFIED, true);
+    final TransportCriteria transportCriteriaDuration = new TransportCriteria(TransportationMode.NOT_SPECIFIED, false);
+    final TransportCriteria transportCriteriaTrain = new TransportCriteria(TransportationMode.TRAIN, true);
+    final double maxPrice = 2000.;
+    ICityService<SimpleTrip> transportService;
+    RaptorOptimizer transportOptimizer;
+    SimpleTrip cheapTrain;
+    SimpleTrip fastPlane;
+    SimpleTrip slowExpensiveTrain;
+    SimpleTrip toStop;
+    SimpleTrip fromStop;
+
+    @BeforeEach
+    public void setUp() {
+        transportService = mock(ICityService.class);
+        transportOptimizer = new RaptorOptimizer(transportService);
+
+        cheapTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 50., departure, departure.plusHours(4));
+        fastPlane = new SimpleTrip("origin", "destination", TransportationMode.PLANE, 200., departure, departure.plusHours(1));
+        slowExpensiveTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 300., departure, departure.plusHours(5));
+        toStop = new SimpleTrip("origin", "stop", TransportationMode.TRAIN, 20., departure, departure.plusHours(1));
+        fromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 20., departure.plusHours(1), departure.plusHours(3));
+    }
+
+    @Test
+    public void testGetParetoTrips_dropsDominatedTrips() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(cheapTrain, fastPlane, slowExpensiveTrain));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(cheapTrain), result.get(0).getTrips());
+        assertEquals(List.of(fastPlane), result.get(1).getTrips());
+    }
+
+    @Test
+    public void testGetParetoTrips_keepsDirectTripWithFewerLegs() {
+        SimpleTrip direct = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 60., departure, departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(direct, toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(fromStop));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertEquals(2, result.size());
+        assertEquals(List.of(toStop, fromStop), result.get(0).getTrips());
+        assertEquals(List.of(direct), result.get(1).getTrips());
+    }
+
+    @Test
+    public void testGetParetoTrips_withMissedConnection() {
+        SimpleTrip lateFromStop = new SimpleTrip("stop", "destination", TransportationMode.TRAIN, 20., departure.minusHours(1), departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(toStop));
+        when(transportService.getForCity("stop", departure)).thenReturn(List.of(lateFromStop));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    public void testGetParetoTrips_withBudget() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(cheapTrain, fastPlane));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaPrice, 100.);
+
+        assertEquals(1, result.size());
+        assertEquals(List.of(cheapTrain), result.getFirst().getTrips());
+    }
+
+    @Test
+    public void testGetParetoTrips_withPreferredMode() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(cheapTrain, fastPlane));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(1, result.size());
+        assertEquals(List.of(cheapTrain), result.getFirst().getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferPrice() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(fastPlane, cheapTrain));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, maxPrice);
+
+        assertEquals(List.of(cheapTrain), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferDuration() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(cheapTrain, fastPlane));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+
+        assertEquals(List.of(fastPlane), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_preferDuration_laterShorterTrip() {
+        SimpleTrip early = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 50., departure, departure.plusHours(2));
+        SimpleTrip late = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 50., departure.plusHours(3), departure.plusHours(4));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(early, late));
+
+        ComposedTrip result = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+        ComposedTrip expected = new TransportOptimizer(transportService).getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+
+        // The late trip arrives after the early one for the same price, but spends less time in transports
+        assertEquals(List.of(late), result.getTrips());
+        assertEquals(expected.getTrips(), result.getTrips());
+        assertEquals(1, transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaPrice, maxPrice).size());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_withNotEnoughBudget() {
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(cheapTrain));
+
+        assertThrows(IllegalArgumentException.class, () -> transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaPrice, 10.));
+    }
+}
@@ -2,7 +2,9 @@ package com.testlog.projet.optimize;
 
 import com.testlog.projet.criteria.AdditionalCriteria;
 import com.testlog.projet.criteria.TransportCriteria;
+import com.testlog.projet.services.CityRegistry;
 import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.ITransportGraph;
 import com.testlog.projet.types.ComposedTrip;
 import com.testlog.projet.types.SimpleTrip;
 import com.testlog.projet.types.TransportationMode;
@@ -12,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -159,4 +162,103 @@ public class TransportOptimizerTest {
         assertEquals(List.of(trip), result.getTrips());
 
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetParetoTrips_dropsDominatedTrips() {
+        SimpleTrip expensiveTrain = new SimpleTrip("origin", "destination", TransportationMode.TRAIN, 300., departure, departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane, expensiveTrain));
+
+        List<ComposedTrip> result = transportOptimizer.getParetoTrips("origin", "destination", departure, transportCriteriaNotSpecified, maxPrice);
+
+        // The plane has the same price as the train but arrives earlier
+        assertEquals(1, result.size());
+        assertEquals(List.of(forwardTripPlane), result.getFirst().getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_parallel_shouldFindMultiLegTrip() {
+        TransportOptimizer parallelOptimizer = new TransportOptimizer(transportService, ForkJoinPool.commonPool());
+        SimpleTrip toStopover = new SimpleTrip("origin", "stopover", TransportationMode.TRAIN, 20., departure, departure.plusHours(1));
+        SimpleTrip fromStopover = new SimpleTrip("stopover", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(3));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane, toStopover));
+        when(transportService.getForCity("stopover", departure.plusHours(1))).thenReturn(List.of(fromStopover));
+
+        ComposedTrip result = parallelOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaNotSpecified, maxPrice);
+
+        assertEquals(List.of(toStopover, fromStopover), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_parallel_withTie_shouldReturnFirstTrip() {
+        TransportOptimizer parallelOptimizer = new TransportOptimizer(transportService, ForkJoinPool.commonPool());
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+
+        for (int i = 0; i < 20; i++) {
+            ComposedTrip result = parallelOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaNotSpecified, maxPrice);
+
+            assertEquals(List.of(forwardTripTrain), result.getTrips());
+        }
+    }
+
+    @Test
+    public void testGetOptimizedTrip_parallel_withNotEnoughBudget() {
+        TransportOptimizer parallelOptimizer = new TransportOptimizer(transportService, ForkJoinPool.commonPool());
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, forwardTripPlane));
+
+        assertThrows(IllegalArgumentException.class, () -> parallelOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaNotSpecified, 90.));
+    }
+
+    @Test
+    public void testGetOptimizedTrip_parallel_withTripArrivingBeforeDeparture_shouldMatchSequential() {
+        TransportOptimizer parallelOptimizer = new TransportOptimizer(transportService, ForkJoinPool.commonPool());
+        // Counted as taking no time, instead of a negative duration
+        SimpleTrip toStopover = new SimpleTrip("origin", "stopover", TransportationMode.TRAIN, 20., departure, departure.minusHours(1));
+        SimpleTrip fromStopover = new SimpleTrip("stopover", "destination", TransportationMode.TRAIN, 30., departure, departure.plusMinutes(30));
+        when(transportService.getForCity("origin", departure)).thenReturn(List.of(forwardTripTrain, toStopover));
+        when(transportService.getForCity("stopover", departure.minusHours(1))).thenReturn(List.of(fromStopover));
+
+        ComposedTrip expected = transportOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+        ComposedTrip result = parallelOptimizer.getOptimizedTrip("origin", "destination", departure, transportCriteriaDuration, maxPrice);
+
+        assertEquals(List.of(toStopover, fromStopover), expected.getTrips());
+        assertEquals(expected.getTrips(), result.getTrips());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_transportGraph_followsCityIds() {
+        ITransportGraph graph = mock(ITransportGraph.class);
+        CityRegistry cities = new CityRegistry();
+        int origin = cities.register("origin");
+        int stopover = cities.register("stopover");
+        int destination = cities.register("destination");
+        when(graph.getCities()).thenReturn(cities);
+        SimpleTrip toStopover = new SimpleTrip("origin", "stopover", TransportationMode.TRAIN, 20., departure, departure.plusHours(1));
+        SimpleTrip fromStopover = new SimpleTrip("stopover", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(3));
+        when(graph.getDepartures(origin, departure)).thenReturn(new ITransportGraph.Departures(List.of(forwardTripPlane, toStopover), new int[]{destination, stopover}));
+        when(graph.getDepartures(stopover, departure.plusHours(1))).thenReturn(new ITransportGraph.Departures(List.of(fromStopover), new int[]{destination}));
+
+        ComposedTrip result = new TransportOptimizer(graph).getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(toStopover, fromStopover), result.getTrips());
+        verify(graph, never()).getForCity(anyString(), any());
+    }
+
+    @Test
+    public void testGetOptimizedTrip_parallel_transportGraph_followsCityIds() {
+        ITransportGraph graph = mock(ITransportGraph.class);
+        CityRegistry cities = new CityRegistry();
+        int origin = cities.register("origin");
+        int stopover = cities.register("stopover");
+        int destination = cities.register("destination");
+        when(graph.getCities()).thenReturn(cities);
+        SimpleTrip toStopover = new SimpleTrip("origin", "stopover", TransportationMode.TRAIN, 20., departure, departure.plusHours(1));
+        SimpleTrip fromStopover = new SimpleTrip("stopover", "destination", TransportationMode.TRAIN, 30., departure.plusHours(2), departure.plusHours(3));
+        when(graph.getDepartures(origin, departure)).thenReturn(new ITransportGraph.Departures(List.of(forwardTripPlane, toStopover), new int[]{destination, stopover}));
+        when(graph.getDepartures(stopover, departure.plusHours(1))).thenReturn(new ITransportGraph.Departures(List.of(fromStopover), new int[]{destination}));
+
+        ComposedTrip result = new TransportOptimizer(graph, ForkJoinPool.commonPool()).getOptimizedTrip("origin", "destination", departure, transportCriteriaTrain, maxPrice);
+
+        assertEquals(List.of(toStopover, fromStopover), result.getTrips());
+        verify(graph, never()).getForCity(anyString(), any());
+    }
+}
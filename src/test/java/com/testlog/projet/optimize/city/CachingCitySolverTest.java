@@ -0,0 +1,182 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.services.CacheStats;
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+public class CachingCitySolverTest {
+    final Activity activityA = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(true, true, true, true, true, true, true));
+    final Activity activityB = new Activity("name", "address", "Bordeaux", new LatLng(1.3, 1.3), ActivityType.CINEMA, 75., List.of(true, true, true, true, true, true, true));
+    final Activity activityC = new Activity("name", "address", "Bordeaux", new LatLng(1.5, 1.5), ActivityType.SPORT, 100., List.of(true, true, true, true, true, true, true));
+    ICitySolver citySolver;
+    CachingCitySolver cache;
+
+    @BeforeEach
+    public void setUp() {
+        citySolver = spy(new MatchingCitySolver());
+        cache = new CachingCitySolver(citySolver, 10);
+    }
+
+    @Test
+    public void testSolve_secondCallIsAHit() {
+        List<Activity> first = cache.solve(List.of(activityA, activityB), 0, 2, 1000);
+        List<Activity> second = cache.solve(List.of(activityA, activityB), 0, 2, 1000);
+
+        assertSame(first, second);
+        verify(citySolver, times(1)).solve(any(), anyInt(), anyInt(), anyDouble());
+        assertEquals(new CacheStats(1, 1, 0), cache.getStats());
+        assertEquals(0.5, cache.getStats().hitRate());
+    }
+
+    @Test
+    public void testSolve_ignoresOrderOfActivities() {
+        cache.solve(List.of(activityA, activityB), 0, 2, 1000);
+        cache.solve(List.of(activityB, activityA), 0, 2, 1000);
+
+        verify(citySolver, times(1)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_sameDayOfWeekIsAHit() {
+        cache.solve(List.of(activityA, activityB), 1, 2, 1000);
+        cache.solve(List.of(activityA, activityB), 8, 2, 1000);
+        cache.solve(List.of(activityA, activityB), 2, 2, 1000);
+
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_lowerBudget_planStillFits() {
+        List<Activity> first = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 1000);
+        List<Activity> second = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 125);
+
+        assertSame(first, second);
+        verify(citySolver, times(1)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_lowerBudget_planDoesNotFit() {
+        cache.solve(List.of(activityA, activityB, activityC), 0, 2, 1000);
+        List<Activity> result = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 100);
+
+        assertEquals(Arrays.asList(activityA, null), result);
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_higherBudget_fullPlan() {
+        List<Activity> first = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 125);
+        List<Activity> second = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 1000);
+
+        assertSame(first, second);
+        verify(citySolver, times(1)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_higherBudget_planNotFull() {
+        cache.solve(List.of(activityA, activityB, activityC), 0, 2, 100);
+        List<Activity> result = cache.solve(List.of(activityA, activityB, activityC), 0, 2, 1000);
+
+        assertEquals(2, result.stream().filter(a -> a != null).count());
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSolve_evictsLeastRecentlyUsed() {
+        CachingCitySolver small = new CachingCitySolver(citySolver, 2);
+
+        small.solve(List.of(activityA), 0, 2, 1000);
+        small.solve(List.of(activityB), 0, 2, 1000);
+        small.solve(List.of(activityA), 0, 2, 1000);
+        small.solve(List.of(activityC), 0, 2, 1000);
+        small.solve(List.of(activityA), 0, 2, 1000);
+        small.solve(List.of(activityB), 0, 2, 1000);
+
+        verify(citySolver, times(2)).solve(eq(List.of(activityB)), anyInt(), anyInt(), anyDouble());
+        verify(citySolver, times(1)).solve(eq(List.of(activityA)), anyInt(), anyInt(), anyDouble());
+        assertEquals(new CacheStats(2, 4, 2), small.getStats());
+    }
+
+    @Test
+    public void testSolve_keepsFewBudgetsPerEntry() {
+        // Each budget only fits the cheapest activity, so the plan is not reused for higher budgets
+        for (int b = 0; b <= CachingCitySolver.BUDGETS_PER_ENTRY; b++) {
+            cache.solve(List.of(activityA, activityB), 0, 2, 50 + b);
+        }
+
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    public void testSolve_resultCannotBeModified() {
+        List<Activity> result = cache.solve(List.of(activityA), 0, 2, 1000);
+
+        assertThrows(UnsupportedOperationException.class, () -> result.set(0, activityB));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        cache.solve(List.of(activityA), 0, 2, 1000);
+        cache.invalidateAll();
+        cache.solve(List.of(activityA), 0, 2, 1000);
+
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSession_hitsDoNotOpenSession() {
+        cache.solve(List.of(activityA), 0, 2, 1000);
+
+        try (ICitySolverSession session = cache.openSession(List.of(activityA, activityB), 0, 2)) {
+            CitySolution result = session.solve(List.of(activityA), 1000, null);
+
+            assertTrue(result.optimal());
+        }
+        verify(citySolver, never()).openSession(any(), anyInt(), anyInt());
+    }
+
+    @Test
+    public void testSession_sharesPlansBetweenHotels() {
+        try (ICitySolverSession session = cache.openSession(List.of(activityA, activityB), 0, 2)) {
+            session.solve(List.of(activityA, activityB), 1000);
+            session.solve(List.of(activityB, activityA), 1000);
+            session.solve(List.of(activityA), 1000);
+        }
+
+        verify(citySolver, times(1)).openSession(any(), anyInt(), anyInt());
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+    }
+
+    @Test
+    public void testSession_doesNotCacheUnfinishedSolves() {
+        ICitySolverSession session = mock(ICitySolverSession.class);
+        ICitySolver solver = mock(ICitySolver.class);
+        when(solver.openSession(any(), anyInt(), anyInt())).thenReturn(session);
+        when(session.solve(any(), anyDouble(), any())).thenReturn(new CitySolution(Arrays.asList(null, null), false));
+        CachingCitySolver deadlineCache = new CachingCitySolver(solver, 10);
+
+        try (ICitySolverSession cached = deadlineCache.openSession(List.of(activityA), 0, 2)) {
+            assertFalse(cached.solve(List.of(activityA), 1000, Instant.now()).optimal());
+            assertFalse(cached.solve(List.of(activityA), 1000, Instant.now()).optimal());
+        }
+
+        verify(session, times(2)).solve(any(), anyDouble(), any());
+        verify(session).close();
+    }
+
+    @Test
+    public void testConstructor_withNoSize() {
+        assertThrows(IllegalArgumentException.class, () -> new CachingCitySolver(citySolver, 0));
+    }
+}
@@ -1,16 +1,26 @@
 package com.testlog.projet.optimize.city;
 
 import com.testlog.projet.criteria.CityCriteria;
+import com.testlog.projet.services.ActivityFilter;
+import com.testlog.projet.services.IActivityService;
 import com.testlog.projet.services.ICityService;
+import com.testlog.projet.services.ISpatialCityService;
 import com.testlog.projet.types.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -28,7 +38,8 @@ public class CityOptimizerTest {
     ICityService<Hotel> hotelService;
     @Mock
     ICityService<Activity> activityService;
-    @Mock
+    // Sessions are opened through the default method, which solves each hotel with ICitySolver.solve
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     ICitySolver citySolver;
 
     // Distance between hotel A and activity B is 47.171
@@ -356,4 +367,303 @@ public class CityOptimizerTest {
 
         verify(citySolver, never()).solve(any(), anyInt(), anyInt(), anyDouble());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testOptimize_shouldOpenOneSessionForAllHotels() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+
+        CityCriteria criteria = new CityCriteria(200, List.of(ActivityType.CULTURE), true, 3);
+
+        cityOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        verify(citySolver, times(1)).openSession(List.of(activityA), 0, 2);
+        verify(citySolver, times(2)).solve(eq(List.of(activityA)), eq(0), eq(2), anyDouble());
+    }
+
+    @Test
+    public void testOptimize_withTimeBudget_shouldShareDeadlineBetweenHotels() {
+        ICitySolverSession session = mock(ICitySolverSession.class);
+        when(citySolver.openSession(any(), anyInt(), anyInt())).thenReturn(session);
+        when(session.solve(any(), anyDouble(), any())).thenReturn(new CitySolution(Arrays.asList(null, null), false));
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        CityOptimizer cityOptimizer = new CityOptimizer(hotelService, activityService, citySolver, Duration.ofSeconds(1));
+
+        CityCriteria criteria = new CityCriteria(200, List.of(ActivityType.CULTURE), true, 3);
+
+        Pair<Hotel, List<Activity>> result = cityOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        ArgumentCaptor<Instant> deadlines = ArgumentCaptor.forClass(Instant.class);
+        verify(session, times(2)).solve(any(), anyDouble(), deadlines.capture());
+        assertNotNull(deadlines.getAllValues().getFirst());
+        assertEquals(deadlines.getAllValues().get(0), deadlines.getAllValues().get(1));
+        assertEquals(hotelA, result.first());
+        verify(session).close();
+    }
+
+    @Test
+    public void testPlan_cutByDeadline_isNotOptimal() {
+        ICitySolverSession session = mock(ICitySolverSession.class);
+        when(citySolver.openSession(any(), anyInt(), anyInt())).thenReturn(session);
+        when(session.solve(any(), anyDouble(), any())).thenReturn(new CitySolution(Arrays.asList(activityA, null), false));
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        CityOptimizer cityOptimizer = new CityOptimizer(hotelService, activityService, citySolver, Duration.ofSeconds(1));
+
+        CityCriteria criteria = new CityCriteria(200, List.of(ActivityType.CULTURE), true, 3);
+
+        CityPlan result = cityOptimizer.plan("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        assertEquals(Arrays.asList(activityA, null), result.activities());
+        assertFalse(result.optimal());
+    }
+
+    @Test
+    public void testPlan_withoutDeadline_isOptimal() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+
+        CityCriteria criteria = new CityCriteria(200, List.of(ActivityType.CULTURE), true, 3);
+
+        assertTrue(cityOptimizer.plan("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now()).optimal());
+    }
+
+    @Test
+    public void testOptimizeAll_shouldKeepEquallyGoodPlans() {
+        Hotel hotelC = new Hotel("Bordeaux", new LatLng(1., 1.), 3, "Hotel3", 100, "Address C");
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB, hotelC));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(citySolver.solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt())).thenReturn(List.of(List.of(activityA), List.of(activityB)));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE, ActivityType.CINEMA), true, 3);
+
+        List<Pair<Hotel, List<Activity>>> result = cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 10);
+
+        // Hotel B is more expensive, activities A are cheaper than B
+        assertEquals(List.of(new Pair<>(hotelA, List.of(activityA)), new Pair<>(hotelC, List.of(activityA))), result);
+    }
+
+    @Test
+    public void testOptimizeAll_shouldRespectLimit() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelA, hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        when(citySolver.solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt())).thenReturn(List.of(List.of(activityA)));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        assertEquals(2, cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 2).size());
+    }
+
+    @Test
+    public void testOptimizeAll_withNoLimit() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        when(citySolver.solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt())).thenReturn(List.of(List.of(activityA)));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        assertTrue(cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 0).isEmpty());
+    }
+
+    @Test
+    public void testOptimizeAll_shouldSkipHotelsThatCannotTie() {
+        Hotel hotelC = new Hotel("Bordeaux", new LatLng(1., 1.), 3, "Hotel3", 100, "Address C");
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB, hotelC));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        when(citySolver.solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt())).thenReturn(List.of(List.of(activityA)));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        List<Pair<Hotel, List<Activity>>> result = cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 10);
+
+        // Hotel B is more expensive for the same activities, hotel C can tie with hotel A
+        assertEquals(List.of(new Pair<>(hotelA, List.of(activityA)), new Pair<>(hotelC, List.of(activityA))), result);
+        assertEquals(1, cityOptimizer.getAvoidedSolves());
+    }
+
+    @Test
+    public void testOptimizeAll_withThreads_shouldGiveSameResultAsSequential() {
+        Hotel hotelC = new Hotel("Bordeaux", new LatLng(1., 1.), 3, "Hotel3", 100, "Address C");
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB, hotelC));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(citySolver.solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt())).thenReturn(List.of(List.of(activityA), List.of(activityB)));
+        CityOptimizer parallel = new CityOptimizer(hotelService, activityService, citySolver, null, 3);
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE, ActivityType.CINEMA), true, 3);
+
+        assertEquals(cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 10),
+                parallel.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 10));
+    }
+
+    @Test
+    public void testPlanAll_afterDeadline_isNotOptimal() {
+        ICitySolverSession session = mock(ICitySolverSession.class);
+        when(citySolver.openSession(any(), anyInt(), anyInt())).thenReturn(session);
+        when(session.solve(any(), anyDouble(), any())).thenReturn(new CitySolution(List.of(), false));
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        CityOptimizer cityOptimizer = new CityOptimizer(hotelService, activityService, citySolver, Duration.ZERO);
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        List<CityPlan> result = cityOptimizer.planAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 10);
+
+        assertEquals(List.of(new CityPlan(hotelA, List.of(), false)), result);
+        verify(citySolver, never()).solveAll(any(), anyInt(), anyInt(), anyDouble(), anyInt());
+    }
+
+    @Test
+    public void testOptimizeAll_withNoHotels() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of());
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        assertThrows(IllegalArgumentException.class, () -> cityOptimizer.optimizeAll("Bordeaux", 0, 1, 99999, criteria, LocalDateTime.now(), 2));
+    }
+
+    @Test
+    public void testOptimize_withThreads_shouldGiveSameResultAsSequential() {
+        List<Hotel> hotels = new ArrayList<>();
+        for (int h = 0; h < 20; h++) {
+            // Same price for every other hotel, so that ties are broken by the order of the hotels
+            hotels.add(new Hotel("Bordeaux", new LatLng(1., 1.), 3 + h % 2, "Hotel" + h, 100 + h / 2 * 10, "Address"));
+        }
+        when(hotelService.getForCity(any(), any())).thenReturn(hotels);
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenAnswer(invocation -> {
+            double budget = invocation.getArgument(3);
+            // Fewer activities for the most expensive hotels
+            return budget > 700 ? List.of(activityA, activityB) : Arrays.asList(activityA, null);
+        });
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE, ActivityType.CINEMA), false, 3);
+        CityOptimizer parallelOptimizer = new CityOptimizer(hotelService, activityService, citySolver, null, 4);
+
+        Pair<Hotel, List<Activity>> expected = cityOptimizer.optimize("Bordeaux", 0, 2, 1000, criteria, LocalDateTime.now());
+        Pair<Hotel, List<Activity>> result = parallelOptimizer.optimize("Bordeaux", 0, 2, 1000, criteria, LocalDateTime.now());
+
+        assertEquals(expected, result);
+    }
+
+    @Test
+    public void testOptimize_withThreads_shouldOpenOneSessionPerThread() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB, hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+        AtomicInteger solves = new AtomicInteger();
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenAnswer(invocation -> {
+            solves.incrementAndGet();
+            return List.of(activityA, activityA);
+        });
+        CityOptimizer parallelOptimizer = new CityOptimizer(hotelService, activityService, citySolver, null, 2);
+
+        parallelOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        verify(citySolver, times(2)).openSession(any(), anyInt(), anyInt());
+        assertEquals(4, solves.get() + parallelOptimizer.getAvoidedSolves());
+    }
+
+    @Test
+    public void testOptimize_withThreads_shouldRethrowSolverException() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenThrow(new IllegalStateException("The problem cannot be solved."));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+        CityOptimizer parallelOptimizer = new CityOptimizer(hotelService, activityService, citySolver, null, 2);
+
+        assertThrows(IllegalStateException.class, () -> parallelOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now()));
+    }
+
+    @Test
+    public void testConstructor_withNoThreads() {
+        assertThrows(IllegalArgumentException.class, () -> new CityOptimizer(hotelService, activityService, citySolver, null, 0));
+    }
+
+    @Test
+    public void testOptimize_shouldSkipHotelsThatCannotBeatBest() {
+        Hotel hotelC = new Hotel("Bordeaux", new LatLng(1., 1.), 3, "Hotel3", 300, "Address C");
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelC, hotelB, hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenReturn(List.of(activityA, activityB));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE, ActivityType.CINEMA), true, 3);
+
+        Pair<Hotel, List<Activity>> result = cityOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        // The cheapest hotel is solved first, and the other ones cannot be cheaper
+        assertEquals(hotelA, result.first());
+        verify(citySolver).solve(List.of(activityA, activityB), 0, 2, 99999 - 100 * 2);
+        verify(citySolver, times(1)).solve(any(), anyInt(), anyInt(), anyDouble());
+        assertEquals(2, cityOptimizer.getAvoidedSolves());
+    }
+
+    @Test
+    public void testOptimize_shouldSkipHotelsWithTooFewActivitiesInBudget() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelB));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenReturn(List.of(activityA, activityB));
+
+        // Hotel B leaves 100 for the activities, so at most one of them, hotel A is preferred for its activities
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE, ActivityType.CINEMA), false, 3);
+
+        Pair<Hotel, List<Activity>> result = cityOptimizer.optimize("Bordeaux", 0, 2, 500, criteria, LocalDateTime.now());
+
+        assertEquals(hotelA, result.first());
+        verify(citySolver, never()).solve(any(), anyInt(), anyInt(), eq(100.));
+        assertEquals(1, cityOptimizer.getAvoidedSolves());
+    }
+
+    @Test
+    public void testOptimize_shouldSolveHotelsThatCanTie() {
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA, hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA));
+        when(citySolver.solve(any(), anyInt(), anyInt(), anyDouble())).thenReturn(Arrays.asList(activityA, null));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+
+        cityOptimizer.optimize("Bordeaux", 0, 2, 99999, criteria, LocalDateTime.now());
+
+        verify(citySolver, times(2)).solve(any(), anyInt(), anyInt(), anyDouble());
+        assertEquals(0, cityOptimizer.getAvoidedSolves());
+    }
+
+    @Test
+    public void testOptimize_withSpatialService_shouldQueryActivitiesAroundHotels() {
+        ISpatialCityService<Activity> spatialService = mock(ISpatialCityService.class);
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA));
+        when(spatialService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(spatialService.getWithin(any(), any(), any(), anyDouble())).thenReturn(List.of(activityA, activityB));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+        LocalDateTime date = LocalDateTime.now();
+
+        new CityOptimizer(hotelService, spatialService, citySolver).optimize("Bordeaux", 0, 2, 99999, criteria, date);
+
+        verify(spatialService).getWithin("Bordeaux", date, hotelA.coordinates(), 300);
+        // Categories are still filtered
+        verify(citySolver).solve(List.of(activityA), 0, 2, 99999 - 100 * 2);
+    }
+
+    @Test
+    public void testOptimize_withActivityService_shouldFilterActivitiesInTheService() {
+        IActivityService activityService = mock(IActivityService.class);
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotelA));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        when(activityService.getWithin(any(), any(), any(), anyDouble(), any())).thenReturn(List.of(activityA));
+
+        CityCriteria criteria = new CityCriteria(300, List.of(ActivityType.CULTURE), true, 3);
+        LocalDateTime date = LocalDateTime.now();
+
+        new CityOptimizer(hotelService, activityService, citySolver).optimize("Bordeaux", 0, 2, 99999, criteria, date);
+
+        // The budget left once the hotel is paid bounds the price of the activities
+        verify(activityService).getWithin("Bordeaux", date, hotelA.coordinates(), 300,
+                ActivityFilter.of(Set.of(ActivityType.CULTURE), 0, 2, 99999 - 100 * 2));
+        verify(activityService, never()).getWithin(any(), any(), any(), anyDouble());
+        verify(citySolver).solve(List.of(activityA), 0, 2, 99999 - 100 * 2);
+    }
+}
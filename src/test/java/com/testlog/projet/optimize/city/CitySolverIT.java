@@ -6,7 +6,12 @@ import com.testlog.projet.types.LatLng;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -190,4 +195,114 @@ public class CitySolverIT {
         assertNull(result.get(0));
         assertNull(result.get(1));
     }
+
+    @Test
+    public void testSolve_sameActivityCountAsMatchingSolver() {
+        Random random = new Random(42);
+        MatchingCitySolver matchingSolver = new MatchingCitySolver();
+        ActivityType[] types = ActivityType.values();
+
+        for (int i = 0; i < 200; i++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < random.nextInt(12); a++) {
+                List<Boolean> availability = new ArrayList<>();
+                for (int d = 0; d < 7; d++) {
+                    availability.add(random.nextBoolean());
+                }
+                activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), types[random.nextInt(types.length)], 10. * (1 + random.nextInt(10)), availability));
+            }
+            int startDay = random.nextInt(7);
+            int nbDays = random.nextInt(20);
+            double budget = 20. * random.nextInt(15);
+
+            long expected = solver.solve(activities, startDay, nbDays, budget).stream().filter(Objects::nonNull).count();
+            long actual = matchingSolver.solve(activities, startDay, nbDays, budget).stream().filter(Objects::nonNull).count();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSession_withSubsetsAndBudgets() {
+        try (ICitySolverSession session = solver.openSession(List.of(activityA, activityB, activityC), 0, 2)) {
+            List<Activity> all = session.solve(List.of(activityA, activityB, activityC), 1000);
+            List<Activity> withoutA = session.solve(List.of(activityB, activityC), 1000);
+            List<Activity> oneAffordable = session.solve(List.of(activityB, activityC), 80);
+            List<Activity> noBudget = session.solve(List.of(activityA, activityB, activityC), 0);
+
+            assertEquals(2, all.stream().filter(Objects::nonNull).count());
+            assertTrue(withoutA.contains(activityB));
+            assertTrue(withoutA.contains(activityC));
+            assertTrue(oneAffordable.contains(activityB));
+            assertFalse(oneAffordable.contains(activityC));
+            assertEquals(Arrays.asList(null, null), noBudget);
+        }
+    }
+
+    @Test
+    public void testSession_withUnknownActivity() {
+        try (ICitySolverSession session = solver.openSession(List.of(activityA, activityB), 0, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> session.solve(List.of(activityC), 1000));
+        }
+    }
+
+    @Test
+    public void testSolve_withLongStay_shouldUseEachDayOfTheWeekOncePerWeek() {
+        List<Boolean> mondays = List.of(true, false, false, false, false, false, false);
+        Activity a1 = new Activity("1", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., mondays);
+        Activity a2 = new Activity("2", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., mondays);
+        Activity a3 = new Activity("3", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.SPORT, 30., mondays);
+
+        // Starts on a Sunday, the two Mondays are days 1 and 8
+        List<Activity> result = solver.solve(List.of(a1, a2, a3), 6, 14, 1000);
+
+        assertEquals(14, result.size());
+        assertEquals(2, result.stream().filter(Objects::nonNull).count());
+        assertNotNull(result.get(1));
+        assertNotNull(result.get(8));
+        // Any two of the three activities are a best plan: CBC maximizes the count and does not minimize the price
+        assertNotEquals(result.get(1), result.get(8));
+    }
+
+    @Test
+    public void testSolve_withMonthLongStay() {
+        List<Activity> activities = new ArrayList<>();
+        for (int a = 0; a < 40; a++) {
+            activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., List.of(true, true, true, true, true, true, true)));
+        }
+
+        List<Activity> result = solver.solve(activities, 2, 30, 1000);
+
+        assertEquals(30, result.size());
+        assertEquals(30, result.stream().filter(Objects::nonNull).distinct().count());
+    }
+
+    @Test
+    public void testSolve_withPassedDeadline_shouldReturnFeasibleSolution() {
+        CitySolution result = solver.solve(List.of(activityA, activityB, activityC), 0, 2, 1000, Instant.now().minusSeconds(1));
+
+        assertFalse(result.optimal());
+        assertEquals(Arrays.asList(null, null), result.activities());
+    }
+
+    @Test
+    public void testSolve_withDistantDeadline_shouldReturnOptimalSolution() {
+        CitySolution result = solver.solve(List.of(activityA, activityB, activityC), 0, 2, 1000, Instant.now().plusSeconds(60));
+
+        assertTrue(result.optimal());
+        assertEquals(2, result.activities().stream().filter(Objects::nonNull).count());
+    }
+
+    @Test
+    public void testSession_withoutDeadline_afterDeadline_shouldReturnOptimalSolution() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+        try (ICitySolverSession session = solver.openSession(activities, 0, 2)) {
+            session.solve(activities, 1000, Instant.now().plusMillis(1));
+
+            CitySolution result = session.solve(activities, 1000, null);
+
+            assertTrue(result.optimal());
+            assertEquals(2, result.activities().stream().filter(Objects::nonNull).count());
+        }
+    }
 }
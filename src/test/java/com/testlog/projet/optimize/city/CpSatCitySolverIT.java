@@ -0,0 +1,413 @@
+package com.testlog.projet.optimize.city;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CpSatCitySolverIT {
+    final Activity activityA = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(true, true, true, true, true, true, true));
+    final Activity activityB = new Activity("name", "address", "Bordeaux", new LatLng(1.3, 1.3), ActivityType.CINEMA, 75., List.of(true, true, true, true, true, true, true));
+    final Activity activityC = new Activity("name", "address", "Bordeaux", new LatLng(1.5, 1.5), ActivityType.SPORT, 100., List.of(true, true, true, true, true, true, true));
+    CpSatCitySolver solver;
+
+    @BeforeEach
+    public void setUp() {
+        solver = new CpSatCitySolver(2);
+    }
+
+    @Test
+    public void testSolve_withNoDays() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 0, 1000);
+
+        assertEquals(0, result.size());
+    }
+
+    @Test
+    public void testSolve_withOneDay() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 1, 1000);
+
+        assertEquals(1, result.size());
+    }
+
+    @Test
+    public void testSolve_withMultipleDays() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        assertNotEquals(result.get(0), result.get(1));
+        assertNotNull(result.get(0));
+        assertNotNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withNoBudget() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 0);
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withLargeBudget() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 10000);
+
+        assertEquals(2, result.size());
+        assertNotEquals(result.get(0), result.get(1));
+        assertNotNull(result.get(0));
+        assertNotNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withoutActivities() {
+        List<Activity> activities = List.of();
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withOneActivity() {
+        List<Activity> activities = List.of(activityA);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        // Either the first activity is null or the second one is null
+        assertTrue(result.get(0) == null || result.get(1) == null);
+    }
+
+    @Test
+    public void testSolve_withMultipleActivities_andOneDay() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 1, 1000);
+
+        assertEquals(1, result.size());
+        assertNotNull(result.getFirst());
+    }
+
+    @Test
+    public void testSolve_withNoAvailability() {
+        Activity a1 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(false, false, false, false, false, false, false));
+        Activity a2 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, false, false, false, false, false));
+        List<Activity> activities = List.of(a1, a2);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withSomeAvailability_noDayPossible() {
+        Activity a1 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(false, false, true, false, false, false, false));
+        Activity a2 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, true, true, true, false, false));
+        List<Activity> activities = List.of(a1, a2);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_withSomeAvailability_allDaysPossible() {
+        Activity a1 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(true, true, true, false, false, false, false));
+        Activity a2 = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, true, true, true, true, false, false));
+        List<Activity> activities = List.of(a1, a2);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 1000);
+
+        assertEquals(2, result.size());
+        assertEquals(a1, result.get(0));
+        assertEquals(a2, result.get(1));
+    }
+
+    @Test
+    public void testSolve_withFullWeek() {
+        List<Activity> activities = List.of(
+                new Activity("1", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(false, false, true, false, false, false, true)),
+                new Activity("2", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, false, false, false, true, false)),
+                new Activity("3", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, false, false, true, false, false)),
+                new Activity("4", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, false, true, false, false, false)),
+                new Activity("5", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, false, true, false, false, false, false)),
+                new Activity("6", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(false, true, false, false, false, false, false)),
+                new Activity("7", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., List.of(true, false, false, false, false, false, false))
+        );
+
+        List<Activity> result = solver.solve(activities, 0, 7, 10000);
+
+        assertEquals(7, result.size());
+        assertEquals(activities.get(6), result.get(0));
+        assertEquals(activities.get(5), result.get(1));
+        assertEquals(activities.get(4), result.get(2));
+        assertEquals(activities.get(3), result.get(3));
+        assertEquals(activities.get(2), result.get(4));
+        assertEquals(activities.get(1), result.get(5));
+        assertEquals(activities.get(0), result.get(6));
+    }
+
+    @Test
+    public void testSolve_withBudgetForOneActivity() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 2, 50);
+
+        assertEquals(2, result.size());
+        assertTrue(result.contains(activityA));
+        assertFalse(result.contains(activityB));
+    }
+
+    @Test
+    public void testSolve_withPricesRoundedUnderTheBudget() {
+        List<Activity> activities = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            activities.add(new Activity("name" + i, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10.004, List.of(true, true, true, true, true, true, true)));
+        }
+
+        // Rounded to the nearest cent, the three activities would cost 30.00 instead of 30.012
+        List<Activity> result = solver.solve(activities, 0, 3, 30.01);
+
+        assertEquals(2, result.stream().filter(Objects::nonNull).count());
+    }
+
+    @Test
+    public void testSolve_withNegativeBudget() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+
+        List<Activity> result = solver.solve(activities, 0, 2, -100);
+
+        assertEquals(2, result.size());
+        assertNull(result.get(0));
+        assertNull(result.get(1));
+    }
+
+    @Test
+    public void testSolve_sameActivityCountAsMatchingSolver() {
+        Random random = new Random(42);
+        MatchingCitySolver matchingSolver = new MatchingCitySolver();
+        ActivityType[] types = ActivityType.values();
+
+        for (int i = 0; i < 200; i++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < random.nextInt(12); a++) {
+                List<Boolean> availability = new ArrayList<>();
+                for (int d = 0; d < 7; d++) {
+                    availability.add(random.nextBoolean());
+                }
+                activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), types[random.nextInt(types.length)], 10. * (1 + random.nextInt(10)), availability));
+            }
+            int startDay = random.nextInt(7);
+            int nbDays = random.nextInt(20);
+            double budget = 20. * random.nextInt(15);
+
+            long expected = solver.solve(activities, startDay, nbDays, budget).stream().filter(Objects::nonNull).count();
+            long actual = matchingSolver.solve(activities, startDay, nbDays, budget).stream().filter(Objects::nonNull).count();
+
+            assertEquals(expected, actual);
+        }
+    }
+
+    @Test
+    public void testSession_withSubsetsAndBudgets() {
+        try (ICitySolverSession session = solver.openSession(List.of(activityA, activityB, activityC), 0, 2)) {
+            List<Activity> all = session.solve(List.of(activityA, activityB, activityC), 1000);
+            List<Activity> withoutA = session.solve(List.of(activityB, activityC), 1000);
+            List<Activity> oneAffordable = session.solve(List.of(activityB, activityC), 80);
+            List<Activity> noBudget = session.solve(List.of(activityA, activityB, activityC), 0);
+
+            assertEquals(2, all.stream().filter(Objects::nonNull).count());
+            assertTrue(withoutA.contains(activityB));
+            assertTrue(withoutA.contains(activityC));
+            assertTrue(oneAffordable.contains(activityB));
+            assertFalse(oneAffordable.contains(activityC));
+            assertEquals(Arrays.asList(null, null), noBudget);
+        }
+    }
+
+    @Test
+    public void testSession_withUnknownActivity() {
+        try (ICitySolverSession session = solver.openSession(List.of(activityA, activityB), 0, 2)) {
+            assertThrows(IllegalArgumentException.class, () -> session.solve(List.of(activityC), 1000));
+        }
+    }
+
+    @Test
+    public void testSolve_withLongStay_shouldUseEachDayOfTheWeekOncePerWeek() {
+        List<Boolean> mondays = List.of(true, false, false, false, false, false, false);
+        Activity a1 = new Activity("1", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., mondays);
+        Activity a2 = new Activity("2", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 20., mondays);
+        Activity a3 = new Activity("3", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.SPORT, 30., mondays);
+
+        // Starts on a Sunday, the two Mondays are days 1 and 8
+        List<Activity> result = solver.solve(List.of(a1, a2, a3), 6, 14, 1000);
+
+        assertEquals(14, result.size());
+        assertEquals(2, result.stream().filter(Objects::nonNull).count());
+        assertNotNull(result.get(1));
+        assertNotNull(result.get(8));
+    }
+
+    @Test
+    public void testSolve_withMonthLongStay() {
+        List<Activity> activities = new ArrayList<>();
+        for (int a = 0; a < 40; a++) {
+            activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., List.of(true, true, true, true, true, true, true)));
+        }
+
+        List<Activity> result = solver.solve(activities, 2, 30, 1000);
+
+        assertEquals(30, result.size());
+        assertEquals(30, result.stream().filter(Objects::nonNull).distinct().count());
+    }
+
+    @Test
+    public void testSolve_withPassedDeadline_shouldReturnFeasibleSolution() {
+        CitySolution result = solver.solve(List.of(activityA, activityB, activityC), 0, 2, 1000, Instant.now().minusSeconds(1));
+
+        assertFalse(result.optimal());
+        assertEquals(Arrays.asList(null, null), result.activities());
+    }
+
+    @Test
+    public void testSolve_withDistantDeadline_shouldReturnOptimalSolution() {
+        CitySolution result = solver.solve(List.of(activityA, activityB, activityC), 0, 2, 1000, Instant.now().plusSeconds(60));
+
+        assertTrue(result.optimal());
+        assertEquals(2, result.activities().stream().filter(Objects::nonNull).count());
+    }
+
+    @Test
+    public void testSession_withoutDeadline_afterDeadline_shouldReturnOptimalSolution() {
+        List<Activity> activities = List.of(activityA, activityB, activityC);
+        try (ICitySolverSession session = solver.openSession(activities, 0, 2)) {
+            session.solve(activities, 1000, Instant.now().plusMillis(1));
+
+            CitySolution result = session.solve(activities, 1000, null);
+
+            assertTrue(result.optimal());
+            assertEquals(2, result.activities().stream().filter(Objects::nonNull).count());
+        }
+    }
+
+    @Test
+    public void testSolveAll_withEquallyPricedActivities_shouldReturnEachPlan() {
+        Activity activityD = new Activity("other", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.MUSIC, 50., List.of(true, true, true, true, true, true, true));
+
+        List<List<Activity>> result = solver.solveAll(List.of(activityA, activityB, activityD), 0, 1, 1000, 10);
+
+        assertEquals(2, result.size());
+        assertTrue(result.contains(List.of(activityA)));
+        assertTrue(result.contains(List.of(activityD)));
+    }
+
+    @Test
+    public void testSolveAll_shouldOnlyReturnCheapestPlans() {
+        List<List<Activity>> result = solver.solveAll(List.of(activityA, activityB, activityC), 0, 2, 1000, 10);
+
+        assertEquals(1, result.size());
+        assertEquals(2, result.getFirst().stream().filter(Objects::nonNull).count());
+        assertTrue(result.getFirst().containsAll(List.of(activityA, activityB)));
+    }
+
+    @Test
+    public void testSolveAll_shouldRespectLimit() {
+        List<Activity> activities = new ArrayList<>();
+        for (int a = 0; a < 6; a++) {
+            activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., List.of(true, true, true, true, true, true, true)));
+        }
+
+        List<List<Activity>> result = solver.solveAll(activities, 0, 2, 1000, 4);
+
+        assertEquals(4, result.size());
+        assertEquals(4, result.stream().distinct().count());
+    }
+
+    @Test
+    public void testSolveAll_withNoBudget() {
+        List<List<Activity>> result = solver.solveAll(List.of(activityA), 0, 2, 0, 10);
+
+        assertEquals(List.of(Arrays.asList(null, null)), result);
+    }
+
+    @Test
+    public void testSolveAll_withOneBestSet_shouldReturnItOnce() {
+        List<Activity> activities = new ArrayList<>();
+        for (int a = 0; a < 7; a++) {
+            activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., List.of(true, true, true, true, true, true, true)));
+        }
+
+        // The 5040 placements of the same 7 activities are a single plan
+        List<List<Activity>> result = assertTimeoutPreemptively(Duration.ofSeconds(5), () -> solver.solveAll(activities, 0, 7, 1000, 10));
+
+        assertEquals(1, result.size());
+        assertEquals(7, result.getFirst().stream().filter(Objects::nonNull).distinct().count());
+    }
+
+    @Test
+    public void testSolveAll_shouldPlaceActivitiesOnTheirDays() {
+        Activity mondayOrTuesday = new Activity("1", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10., List.of(true, true, false, false, false, false, false));
+        Activity monday = new Activity("2", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CINEMA, 10., List.of(true, false, false, false, false, false, false));
+
+        List<List<Activity>> result = solver.solveAll(List.of(mondayOrTuesday, monday), 0, 2, 1000, 10);
+
+        assertEquals(List.of(List.of(monday, mondayOrTuesday)), result);
+    }
+
+    @Test
+    public void testSolveAll_sameBestPlansAsSolve() {
+        Random random = new Random(7);
+
+        for (int i = 0; i < 100; i++) {
+            List<Activity> activities = new ArrayList<>();
+            for (int a = 0; a < random.nextInt(10); a++) {
+                List<Boolean> availability = new ArrayList<>();
+                for (int d = 0; d < 7; d++) {
+                    availability.add(random.nextBoolean());
+                }
+                activities.add(new Activity("" + a, "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 10. * (1 + random.nextInt(3)), availability));
+            }
+            int startDay = random.nextInt(7);
+            int nbDays = random.nextInt(10);
+            double budget = 20. * random.nextInt(8);
+
+            long expected = solver.solve(activities, startDay, nbDays, budget).stream().filter(Objects::nonNull).count();
+            for (List<Activity> plan : solver.solveAll(activities, startDay, nbDays, budget, 5)) {
+                assertEquals(nbDays, plan.size());
+                assertEquals(expected, plan.stream().filter(Objects::nonNull).count());
+                assertTrue(plan.stream().filter(Objects::nonNull).mapToDouble(Activity::price).sum() <= budget);
+                for (int d = 0; d < plan.size(); d++) {
+                    if (plan.get(d) != null) assertTrue(plan.get(d).availability().get((startDay + d) % 7));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package com.testlog.projet.optimize.city;
+
+import com.google.ortools.linearsolver.MPSolver;
+import com.testlog.projet.criteria.CityCriteria;
+import com.testlog.projet.services.ICityService;
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.Hotel;
+import com.testlog.projet.types.LatLng;
+import com.testlog.projet.types.Pair;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SolverPoolIT {
+    final Activity activityA = new Activity("name", "address", "Bordeaux", new LatLng(1., 1.), ActivityType.CULTURE, 50., List.of(true, true, true, true, true, true, true));
+    final Activity activityB = new Activity("name", "address", "Bordeaux", new LatLng(1.3, 1.3), ActivityType.CINEMA, 75., List.of(true, true, true, true, true, true, true));
+
+    @Test
+    public void testPool_createsSolversUpFront() {
+        try (SolverPool pool = new SolverPool(2)) {
+            SolverPoolStats stats = pool.getStats();
+
+            assertEquals(2, stats.allocations());
+            assertEquals(2, stats.idle());
+            assertEquals(0, stats.inUse());
+        }
+    }
+
+    @Test
+    public void testPool_acquireAndRelease() {
+        try (SolverPool pool = new SolverPool(1)) {
+            MPSolver solver = pool.acquire();
+            solver.makeBoolVar("x");
+
+            assertEquals(1, pool.getStats().inUse());
+            assertEquals(0, pool.getStats().idle());
+
+            pool.release(solver);
+
+            assertEquals(0, solver.numVariables());
+            assertEquals(0, pool.getStats().inUse());
+            assertEquals(1, pool.getStats().idle());
+            assertEquals(1, pool.getStats().acquisitions());
+        }
+    }
+
+    @Test
+    public void testPool_shouldWaitForReleasedSolver() throws Exception {
+        try (SolverPool pool = new SolverPool(1)) {
+            MPSolver solver = pool.acquire();
+
+            CountDownLatch started = new CountDownLatch(1);
+            CompletableFuture<MPSolver> waiting = CompletableFuture.supplyAsync(() -> {
+                started.countDown();
+                return pool.acquire();
+            });
+            started.await();
+            Thread.sleep(50);
+            assertFalse(waiting.isDone());
+
+            pool.release(solver);
+
+            assertSame(solver, waiting.get(5, TimeUnit.SECONDS));
+            // The waiting thread may start acquiring a little after it signals
+            assertTrue(pool.getStats().maxWaitNanos() >= TimeUnit.MILLISECONDS.toNanos(25));
+            pool.release(solver);
+        }
+    }
+
+    @Test
+    public void testPool_closeDeletesSolvers() {
+        SolverPool pool = new SolverPool(2);
+        MPSolver solver = pool.acquire();
+
+        pool.close();
+        assertEquals(1, pool.getStats().deletions());
+
+        pool.release(solver);
+        assertEquals(2, pool.getStats().deletions());
+        assertThrows(IllegalStateException.class, pool::acquire);
+    }
+
+    @Test
+    public void testCitySolver_withPool_shouldGiveSolverBack() {
+        try (SolverPool pool = new SolverPool(1)) {
+            CitySolver solver = new CitySolver(pool);
+
+            for (int i = 0; i < 3; i++) {
+                List<Activity> result = solver.solve(List.of(activityA, activityB), 0, 2, 1000);
+
+                assertEquals(2, result.stream().filter(Objects::nonNull).count());
+            }
+
+            assertEquals(1, pool.getStats().allocations());
+            assertEquals(3, pool.getStats().acquisitions());
+            assertEquals(1, pool.getStats().idle());
+        }
+    }
+
+    @Test
+    public void testCitySolver_withPool_shouldGiveSolverBackWhenTheModelFails() {
+        try (SolverPool pool = new SolverPool(1)) {
+            CitySolver solver = new CitySolver(pool);
+
+            assertThrows(NullPointerException.class, () -> solver.openSession(Arrays.asList(activityA, null), 0, 2));
+
+            assertEquals(0, pool.getStats().inUse());
+            assertEquals(1, pool.getStats().idle());
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testCityOptimizer_optimizeAll_withOneSolver_shouldNotWaitForASecondOne() {
+        ICityService<Hotel> hotelService = mock(ICityService.class);
+        ICityService<Activity> activityService = mock(ICityService.class);
+        Hotel hotel = new Hotel("Bordeaux", new LatLng(1., 1.), 3, "Hotel", 100, "Address");
+        when(hotelService.getForCity(any(), any())).thenReturn(List.of(hotel));
+        when(activityService.getForCity(any(), any())).thenReturn(List.of(activityA, activityB));
+        CityCriteria criteria = new CityCriteria(100, List.of(ActivityType.CULTURE, ActivityType.CINEMA), true, 3);
+
+        try (SolverPool pool = new SolverPool(1)) {
+            CityOptimizer optimizer = new CityOptimizer(hotelService, activityService, new CitySolver(pool));
+
+            List<Pair<Hotel, List<Activity>>> result = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                    () -> optimizer.optimizeAll("Bordeaux", 0, 2, 1000, criteria, LocalDateTime.now(), 5));
+
+            assertEquals(1, result.size());
+            assertEquals(2, result.getFirst().second().stream().filter(Objects::nonNull).count());
+            assertEquals(1, pool.getStats().acquisitions());
+            assertEquals(1, pool.getStats().idle());
+        }
+    }
+}
@@ -2,11 +2,14 @@ package com.testlog.projet.services;
 
 import com.testlog.projet.services.io.IFileReader;
 import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.Availability;
+import com.testlog.projet.types.LatLng;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.Collections;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -116,4 +119,71 @@ public class ActivityServiceTest {
         List<Boolean> expectedAvailability = List.of(true, false, true, false, true, false, false);
         assertEquals(expectedAvailability, firstActivity.availability(), "Wrong availability");
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetForCity_returnsSameActivities() throws IOException {
+        when(fileReader.readAll(anyString())).thenReturn("{\"Rennes\":[" + activity + "]}");
+        ActivityService service = new ActivityService(fileReader);
+
+        List<Activity> first = service.getForCity("Rennes", LocalDateTime.now());
+        List<Activity> second = service.getForCity("Rennes", LocalDateTime.now().plusDays(1));
+
+        assertNotSame(first, second);
+        assertSame(first.getFirst(), second.getFirst());
+    }
+
+    @Test
+    public void testGetWithin() throws IOException {
+        String activityB = "{\"category\":\"Music\",\"price\":25,\"name\":\"Concert de jazz\",\"address\":\"Le Liberté, Rennes\",\"lat\":\"48.10690725\",\"lon\":\"-1.6768673810895989\",\"days\":[false,false,false,false,false,true,false]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"Rennes\":[" + activity + "," + activityB + "]}");
+        ActivityService service = new ActivityService(fileReader);
+        LatLng gym = new LatLng(48.08798165, -1.6154534700343328);
+
+        List<Activity> near = service.getWithin("Rennes", LocalDateTime.now(), gym, 1);
+        List<Activity> all = service.getWithin("Rennes", LocalDateTime.now(), gym, 10);
+
+        assertEquals(1, near.size());
+        assertSame(service.getForCity("Rennes", LocalDateTime.now()).getFirst(), near.getFirst());
+        assertEquals(service.getForCity("Rennes", LocalDateTime.now()), all);
+        assertTrue(service.getWithin("NoSuchCity", LocalDateTime.now(), gym, 10).isEmpty());
+    }
+
+    @Test
+    public void testGetForCity_compactAvailability() throws IOException {
+        String activityB = "{\"category\":\"Music\",\"price\":25,\"name\":\"Concert de jazz\",\"address\":\"10 Rue du Parc, Rennes\",\"lat\":\"48.10690725\",\"lon\":\"-1.6768673810895989\",\"days\":[true,false,true,false,true,false,false]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"Rennes\":[" + activity + "," + activityB + "]}");
+        ActivityService service = new ActivityService(fileReader);
+
+        List<Activity> activities = service.getForCity("Rennes", LocalDateTime.now());
+
+        assertInstanceOf(Availability.class, activities.get(0).availability());
+        assertSame(activities.get(0).availability(), activities.get(1).availability());
+        assertSame(activities.get(0).address(), activities.get(1).address());
+        assertSame(activities.get(0).city(), activities.get(1).city());
+    }
+
+    @Test
+    public void testGetForCity_missingDays() throws IOException {
+        String activity = "{\"category\":\"Music\",\"price\":25,\"name\":\"Concert de jazz\",\"address\":\"Le Liberté, Rennes\",\"lat\":\"48.10690725\",\"lon\":\"-1.6768673810895989\"}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"Rennes\":[" + activity + "]}");
+        ActivityService service = new ActivityService(fileReader);
+
+        List<Activity> activities = service.getForCity("Rennes", LocalDateTime.now());
+
+        assertEquals(Collections.nCopies(7, false), activities.getFirst().availability());
+    }
+
+    @Test
+    public void testGetForCity_byId() throws IOException {
+        when(fileReader.readAll(anyString())).thenReturn("{\"Rennes\":[" + activity + "]}");
+        CityRegistry cities = new CityRegistry();
+        int paris = cities.register("Paris");
+        ActivityService service = new ActivityService(fileReader, cities);
+
+        List<Activity> activities = service.getForCity(cities.find("Rennes"), LocalDateTime.now());
+
+        assertSame(service.getForCity("Rennes", LocalDateTime.now()).getFirst(), activities.getFirst());
+        assertSame(cities.name(cities.find("Rennes")), activities.getFirst().city());
+        assertTrue(service.getForCity(paris, LocalDateTime.now()).isEmpty());
+    }
+}
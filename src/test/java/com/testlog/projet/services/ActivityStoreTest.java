@@ -0,0 +1,78 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.Availability;
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ActivityStoreTest {
+    private final ActivityStore.Row gym = new ActivityStore.Row("Gym", "10 Rue du Parc", "48.08798165", "-1.6154534700343328",
+            "Sport", 12.5, List.of(true, false, true, false, true, false, false));
+    private final ActivityStore.Row concert = new ActivityStore.Row("Concert", new String("10 Rue du Parc"), "48.10690725", "-1.6768673810895989",
+            "Music", 25, List.of(false, false, false, false, false, true, false));
+
+    @Test
+    public void testBuild_activities() {
+        ActivityStore store = ActivityStore.build("Rennes", List.of(gym, concert));
+
+        Activity activity = store.activities().getFirst();
+        assertEquals(new Activity("Gym", "10 Rue du Parc", "Rennes", new LatLng(48.08798165, -1.6154534700343328), ActivityType.SPORT, 12.5,
+                List.of(true, false, true, false, true, false, false)), activity);
+        assertSame(activity.address(), store.activities().get(1).address());
+        assertEquals(ActivityType.MUSIC, store.activities().get(1).type());
+        assertInstanceOf(Availability.class, activity.availability());
+    }
+
+    @Test
+    public void testWithin() {
+        ActivityStore store = ActivityStore.build("Rennes", List.of(gym, concert));
+        LatLng center = new LatLng(48.08798165, -1.6154534700343328);
+
+        assertEquals(List.of(store.activities().getFirst()), store.within(center, 1));
+        assertEquals(store.activities(), store.within(center, 10));
+    }
+
+    @Test
+    public void testWithin_filter() {
+        ActivityStore store = ActivityStore.build("Rennes", List.of(gym, concert));
+        LatLng center = new LatLng(48.08798165, -1.6154534700343328);
+        Activity gymActivity = store.activities().getFirst();
+        Activity concertActivity = store.activities().get(1);
+
+        // Category
+        assertEquals(List.of(concertActivity), store.within(center, 10, ActivityFilter.of(Set.of(ActivityType.MUSIC), 0, 7, 100)));
+        // Days: the gym is closed on Tuesdays and the concert is on Saturday
+        assertEquals(List.of(), store.within(center, 10, ActivityFilter.of(Set.of(ActivityType.SPORT, ActivityType.MUSIC), 1, 1, 100)));
+        assertEquals(List.of(gymActivity, concertActivity), store.within(center, 10, ActivityFilter.of(Set.of(ActivityType.SPORT, ActivityType.MUSIC), 4, 2, 100)));
+        // Price
+        assertEquals(List.of(gymActivity), store.within(center, 10, ActivityFilter.of(Set.of(ActivityType.SPORT, ActivityType.MUSIC), 0, 7, 20)));
+        // Distance
+        assertEquals(List.of(gymActivity), store.within(center, 1, ActivityFilter.of(Set.of(ActivityType.SPORT, ActivityType.MUSIC), 0, 7, 100)));
+    }
+
+    @Test
+    public void testWithin_filter_sameAsTest() {
+        ActivityStore store = ActivityStore.build("Rennes", List.of(gym, concert));
+        LatLng center = new LatLng(48.08798165, -1.6154534700343328);
+
+        for (int startDay = 0; startDay < 7; startDay++) {
+            for (int nbDays = 1; nbDays <= 8; nbDays++) {
+                ActivityFilter filter = ActivityFilter.of(Set.of(ActivityType.SPORT, ActivityType.MUSIC), startDay, nbDays, 20);
+                assertEquals(store.within(center, 10).stream().filter(filter::test).toList(), store.within(center, 10, filter));
+            }
+        }
+    }
+
+    @Test
+    public void testBuild_invalidCoordinates() {
+        ActivityStore.Row invalid = new ActivityStore.Row("Gym", "10 Rue du Parc", "north", "west", "Sport", 12.5, List.of());
+
+        assertThrows(NumberFormatException.class, () -> ActivityStore.build("Rennes", List.of(invalid)));
+    }
+}
@@ -0,0 +1,164 @@
+package com.testlog.projet.services;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.UnaryOperator;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class CachingCityServiceTest {
+
+    final LocalDateTime morning = LocalDateTime.parse("2025-01-08T08:00:00");
+    final Duration timeToLive = Duration.ofMinutes(10);
+    final AtomicLong now = new AtomicLong();
+    ICityService<String> cityService;
+
+    @BeforeEach
+    public void setUp() {
+        cityService = mock(ICityService.class);
+        when(cityService.getForCity(anyString(), any())).thenAnswer(invocation -> List.of(invocation.getArgument(0) + "@" + invocation.getArgument(1)));
+    }
+
+    private CachingCityService<String> cache(int maxSize, UnaryOperator<LocalDateTime> keyNormalizer) {
+        return new CachingCityService<>(cityService, maxSize, timeToLive, keyNormalizer, now::get);
+    }
+
+    @Test
+    public void testGetForCity_secondCallIsAHit() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+
+        List<String> first = cache.getForCity("Paris", morning);
+        List<String> second = cache.getForCity("Paris", morning);
+
+        assertSame(first, second);
+        verify(cityService, times(1)).getForCity("Paris", morning);
+        assertEquals(new CacheStats(1, 1, 0), cache.getStats());
+        assertEquals(0.5, cache.getStats().hitRate());
+    }
+
+    @Test
+    public void testGetForCity_byDay_ignoresTimeOfDay() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byDay());
+
+        cache.getForCity("Paris", morning);
+        cache.getForCity("Paris", morning.plusHours(10));
+        cache.getForCity("Paris", morning.plusDays(1));
+
+        verify(cityService).getForCity("Paris", morning.toLocalDate().atStartOfDay());
+        verify(cityService).getForCity("Paris", morning.plusDays(1).toLocalDate().atStartOfDay());
+        assertEquals(new CacheStats(1, 2, 0), cache.getStats());
+    }
+
+    @Test
+    public void testGetForCity_byMinute_roundsUpSeconds() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+
+        cache.getForCity("Paris", morning);
+        cache.getForCity("Paris", morning.plusSeconds(30));
+        cache.getForCity("Paris", morning.plusMinutes(1));
+
+        verify(cityService).getForCity("Paris", morning);
+        verify(cityService).getForCity("Paris", morning.plusMinutes(1));
+        assertEquals(new CacheStats(1, 2, 0), cache.getStats());
+    }
+
+    @Test
+    public void testGetForCity_byMinute_staysOnTheSameDay() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+        LocalDateTime lastMinute = morning.toLocalDate().atTime(23, 59, 30);
+
+        cache.getForCity("Paris", lastMinute);
+        cache.getForCity("Paris", morning.toLocalDate().plusDays(1).atStartOfDay());
+
+        verify(cityService).getForCity("Paris", lastMinute);
+        verify(cityService).getForCity("Paris", morning.toLocalDate().plusDays(1).atStartOfDay());
+        assertEquals(new CacheStats(0, 2, 0), cache.getStats());
+    }
+
+    @Test
+    public void testGetForCity_evictsLeastRecentlyUsed() {
+        CachingCityService<String> cache = cache(2, CachingCityService.byMinute());
+
+        cache.getForCity("Paris", morning);
+        cache.getForCity("Lyon", morning);
+        cache.getForCity("Paris", morning);
+        cache.getForCity("Nantes", morning);
+        cache.getForCity("Paris", morning);
+        cache.getForCity("Lyon", morning);
+
+        verify(cityService, times(1)).getForCity("Paris", morning);
+        verify(cityService, times(2)).getForCity("Lyon", morning);
+        assertEquals(2, cache.getStats().evictions());
+    }
+
+    @Test
+    public void testGetForCity_expiresAfterTimeToLive() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+
+        cache.getForCity("Paris", morning);
+        now.addAndGet(timeToLive.toNanos());
+        cache.getForCity("Paris", morning);
+        now.addAndGet(1);
+        cache.getForCity("Paris", morning);
+
+        verify(cityService, times(2)).getForCity("Paris", morning);
+        assertEquals(new CacheStats(1, 2, 1), cache.getStats());
+    }
+
+    @Test
+    public void testGetForCity_failuresAreNotCached() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+        when(cityService.getForCity("Paris", morning)).thenThrow(new IllegalStateException()).thenReturn(List.of("ok"));
+
+        assertThrows(IllegalStateException.class, () -> cache.getForCity("Paris", morning));
+        assertEquals(List.of("ok"), cache.getForCity("Paris", morning));
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+
+        cache.getForCity("Paris", morning);
+        cache.invalidateAll();
+        cache.getForCity("Paris", morning);
+
+        verify(cityService, times(2)).getForCity("Paris", morning);
+    }
+
+    @Test
+    public void testGetForCity_concurrentCallsShareOneLoad() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(cityService.getForCity("Paris", morning)).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await();
+            return List.of("Paris");
+        });
+        CachingCityService<String> cache = cache(10, CachingCityService.byMinute());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<List<String>> first = executor.submit(() -> cache.getForCity("Paris", morning));
+            loading.await();
+            Future<List<String>> second = executor.submit(() -> cache.getForCity("Paris", morning));
+            // Wait for the second caller to be registered as a hit on the pending load
+            while (cache.getStats().hits() == 0) {
+                Thread.onSpinWait();
+            }
+            release.countDown();
+
+            assertEquals(List.of("Paris"), first.get(5, TimeUnit.SECONDS));
+            assertEquals(List.of("Paris"), second.get(5, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+        verify(cityService, times(1)).getForCity("Paris", morning);
+    }
+}
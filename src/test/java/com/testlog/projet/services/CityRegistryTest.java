@@ -0,0 +1,70 @@
+package com.testlog.projet.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CityRegistryTest {
+
+    @Test
+    public void testRegister_denseIds() {
+        CityRegistry cities = new CityRegistry();
+
+        assertEquals(0, cities.register("Paris"));
+        assertEquals(1, cities.register("Bordeaux"));
+        assertEquals(0, cities.register("Paris"));
+        assertEquals(2, cities.size());
+    }
+
+    @Test
+    public void testFind() {
+        CityRegistry cities = new CityRegistry();
+        cities.register("Paris");
+
+        assertEquals(0, cities.find("Paris"));
+        assertEquals(-1, cities.find("Bordeaux"));
+        assertEquals(1, cities.size());
+    }
+
+    @Test
+    public void testName_sharedInstance() {
+        CityRegistry cities = new CityRegistry();
+        String paris = "Paris";
+        int id = cities.register(paris);
+
+        cities.register(new String("Paris"));
+
+        assertSame(paris, cities.name(id));
+        assertThrows(IndexOutOfBoundsException.class, () -> cities.name(1));
+        assertThrows(IndexOutOfBoundsException.class, () -> cities.name(-1));
+    }
+
+    @Test
+    public void testRegister_manyCities() {
+        CityRegistry cities = new CityRegistry();
+        List<String> names = IntStream.range(0, 100).mapToObj(i -> "City" + i).toList();
+
+        names.forEach(cities::register);
+
+        for (int i = 0; i < names.size(); i++) {
+            assertEquals(names.get(i), cities.name(i));
+        }
+    }
+
+    @Test
+    public void testRegister_concurrently() {
+        CityRegistry cities = new CityRegistry();
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        IntStream.range(0, 1000).parallel().forEach(i -> ids.add(cities.register("City" + i % 100)));
+
+        assertEquals(100, cities.size());
+        assertEquals(100, ids.size());
+        IntStream.range(0, 100).forEach(id -> assertEquals(id, cities.find(cities.name(id))));
+    }
+}
@@ -0,0 +1,59 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assumptions.assumeFalse;
+
+/**
+ * Compares the hotel × activity "within radius" matrix computed by the scalar and Vector API kernels,
+ * for 20 000 activities and 500 hotels with a 5 km radius.
+ * The times are printed, only the results are checked.
+ */
+public class DistanceKernelBenchmarkIT {
+    private static final int ACTIVITIES = 20_000;
+    private static final int HOTELS = 500;
+    private static final double RADIUS = 5;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkWithin_scalarAgainstVector() {
+        IDistanceKernel vector = DistanceKernels.best();
+        assumeFalse(vector instanceof ScalarDistanceKernel, "The Vector API kernel is only built with the vector profile");
+
+        Random random = new Random(42);
+        List<LatLng> activities = new ArrayList<>();
+        for (int a = 0; a < ACTIVITIES; a++) {
+            activities.add(new LatLng(48.1 + (random.nextDouble() - 0.5) * 0.36, -1.65 + (random.nextDouble() - 0.5) * 0.54));
+        }
+        List<LatLng> hotels = new ArrayList<>();
+        for (int h = 0; h < HOTELS; h++) {
+            hotels.add(new LatLng(48.1 + (random.nextDouble() - 0.5) * 0.36, -1.65 + (random.nextDouble() - 0.5) * 0.54));
+        }
+        CoordinateBuffer buffer = CoordinateBuffer.of(activities);
+        IDistanceKernel scalar = new ScalarDistanceKernel();
+
+        long scalarNanos = Long.MAX_VALUE;
+        long vectorNanos = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            BitSet[] expected = scalar.within(hotels, buffer, RADIUS);
+            scalarNanos = Math.min(scalarNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            BitSet[] result = vector.within(hotels, buffer, RADIUS);
+            vectorNanos = Math.min(vectorNanos, System.nanoTime() - start);
+
+            assertArrayEquals(expected, result);
+        }
+
+        System.out.printf("DistanceKernel: %d activities, %d hotels, %.0f km%n", ACTIVITIES, HOTELS, RADIUS);
+        System.out.printf("  scalar %.1f ms, vector %.1f ms (x%.1f)%n", scalarNanos / 1e6, vectorNanos / 1e6, (double) scalarNanos / vectorNanos);
+    }
+}
@@ -0,0 +1,151 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DistanceKernelsTest {
+    // The Vector API kernel when the tests run with the "vector" profile
+    final List<IDistanceKernel> kernels = List.of(new ScalarDistanceKernel(), DistanceKernels.best());
+
+    private static List<LatLng> randomPoints(Random random, int count, double lat, double lng, double spread) {
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            points.add(new LatLng(lat + (random.nextDouble() - 0.5) * spread, lng + (random.nextDouble() - 0.5) * spread));
+        }
+        return points;
+    }
+
+    private static BitSet linearScan(LatLng center, List<LatLng> points, double radius) {
+        BitSet within = new BitSet();
+        for (int i = 0; i < points.size(); i++) {
+            if (center.isWithin(points.get(i), radius)) within.set(i);
+        }
+        return within;
+    }
+
+    @Test
+    public void testBest_shouldUseVectorKernelOnlyWithVectorModule() {
+        boolean vectorModule = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+        assertEquals(vectorModule, !(DistanceKernels.best() instanceof ScalarDistanceKernel));
+    }
+
+    @Test
+    public void testDistances_sameAsLatLng() {
+        Random random = new Random(1);
+        // Not a multiple of the number of lanes, so that the last points go through the scalar loop
+        List<LatLng> points = randomPoints(random, 1_003, 48.1, -1.65, 2);
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+
+        for (IDistanceKernel kernel : kernels) {
+            for (LatLng center : randomPoints(random, 20, 48.1, -1.65, 2)) {
+                double[] distances = kernel.distances(center, buffer);
+
+                assertEquals(points.size(), distances.length);
+                for (int i = 0; i < points.size(); i++) {
+                    assertEquals(center.distance(points.get(i)), distances[i], 1e-9);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testWithin_sameAsLatLng() {
+        Random random = new Random(2);
+        List<LatLng> points = randomPoints(random, 1_003, 48.1, -1.65, 2);
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+
+        for (IDistanceKernel kernel : kernels) {
+            for (LatLng center : randomPoints(random, 50, 48.1, -1.65, 2)) {
+                double radius = random.nextDouble() * 100;
+
+                assertEquals(linearScan(center, points, radius), kernel.within(center, buffer, radius));
+            }
+        }
+    }
+
+    @Test
+    public void testWithin_atExactDistance() {
+        LatLng center = new LatLng(1., 1.);
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            points.add(new LatLng(1. + i * 0.05, 1.3));
+        }
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+        double radius = center.distance(points.get(5));
+
+        for (IDistanceKernel kernel : kernels) {
+            BitSet within = kernel.within(center, buffer, radius);
+
+            assertTrue(within.get(5));
+            assertEquals(linearScan(center, points, radius), within);
+            assertFalse(kernel.within(center, buffer, Math.nextDown(radius)).get(5));
+        }
+    }
+
+    @Test
+    public void testWithin_withExtremeRadius() {
+        List<LatLng> points = randomPoints(new Random(3), 10, 0, 0, 300);
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+
+        for (IDistanceKernel kernel : kernels) {
+            assertEquals(10, kernel.within(new LatLng(0., 0.), buffer, 20_100).cardinality());
+            assertTrue(kernel.within(new LatLng(0., 0.), buffer, -1).isEmpty());
+        }
+    }
+
+    @Test
+    public void testWithin_matrix() {
+        Random random = new Random(4);
+        List<LatLng> points = randomPoints(random, 100, 48.1, -1.65, 1);
+        List<LatLng> centers = randomPoints(random, 5, 48.1, -1.65, 1);
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+
+        for (IDistanceKernel kernel : kernels) {
+            BitSet[] rows = kernel.within(centers, buffer, 20);
+
+            assertEquals(5, rows.length);
+            for (int c = 0; c < centers.size(); c++) {
+                assertEquals(linearScan(centers.get(c), points, 20), rows[c]);
+            }
+        }
+    }
+
+    @Test
+    public void testWithin_indexes_sameAsLatLng() {
+        Random random = new Random(5);
+        List<LatLng> points = randomPoints(random, 1_003, 48.1, -1.65, 2);
+        CoordinateBuffer buffer = CoordinateBuffer.of(points);
+
+        for (IDistanceKernel kernel : kernels) {
+            for (LatLng center : randomPoints(random, 50, 48.1, -1.65, 2)) {
+                double radius = random.nextDouble() * 100;
+                // Some scattered points, not a multiple of the number of lanes
+                int[] indexes = random.ints(0, points.size()).distinct().limit(101).sorted().toArray();
+
+                int[] expected = Arrays.stream(indexes).filter(i -> center.isWithin(points.get(i), radius)).toArray();
+                assertArrayEquals(expected, kernel.within(center, buffer, indexes, radius));
+            }
+            assertArrayEquals(new int[]{3, 1}, kernel.within(new LatLng(0., 0.), buffer, new int[]{3, 1}, 20_100));
+            assertArrayEquals(new int[0], kernel.within(new LatLng(0., 0.), buffer, new int[]{3, 1}, -1));
+        }
+    }
+
+    @Test
+    public void testWithin_withNoPoints() {
+        CoordinateBuffer buffer = CoordinateBuffer.of(List.of());
+
+        for (IDistanceKernel kernel : kernels) {
+            assertTrue(kernel.within(new LatLng(0., 0.), buffer, 10).isEmpty());
+            assertEquals(0, kernel.distances(new LatLng(0., 0.), buffer).length);
+        }
+    }
+}
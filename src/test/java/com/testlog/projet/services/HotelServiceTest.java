@@ -122,4 +122,20 @@ public class HotelServiceTest {
         assertEquals(1, hotels.size());
         assertEquals("123 Main St", hotels.getFirst().address());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetForCity_byId() throws IOException {
+        String hotelC = "{\"name\":\"Hotel C\",\"stars\":3,\"price\":80.0,\"address\":\"Address C\",\"lat\":\"48.8606\",\"lon\":\"2.3376\"}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"Paris\":[" + hotelA + "," + hotelB + "],\"London\":[" + hotelC + "]}");
+        CityRegistry cities = new CityRegistry();
+        int rome = cities.register("Rome");
+        HotelService service = new HotelService(fileReader, cities);
+
+        List<Hotel> londonHotels = service.getForCity(cities.find("London"), LocalDateTime.now());
+
+        assertEquals(1, londonHotels.size());
+        assertSame(cities.name(cities.find("London")), londonHotels.getFirst().city());
+        assertTrue(service.getForCity(rome, LocalDateTime.now()).isEmpty());
+        assertTrue(service.getForCity(cities.size(), LocalDateTime.now()).isEmpty());
+    }
+}
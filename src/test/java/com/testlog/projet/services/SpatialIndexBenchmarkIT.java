@@ -0,0 +1,68 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.Activity;
+import com.testlog.projet.types.ActivityType;
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the spatial index with the linear scan it replaces in CityOptimizer,
+ * for a large city: 20 000 activities over about 40 x 40 km and 500 hotels, with a 5 km radius.
+ * The times are printed, only the results are checked.
+ */
+public class SpatialIndexBenchmarkIT {
+    private static final int ACTIVITIES = 20_000;
+    private static final int HOTELS = 500;
+    private static final double RADIUS = 5;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void benchmarkWithin_againstLinearScan() {
+        Random random = new Random(42);
+        List<Activity> activities = new ArrayList<>();
+        for (int a = 0; a < ACTIVITIES; a++) {
+            LatLng coordinates = new LatLng(48.1 + (random.nextDouble() - 0.5) * 0.36, -1.65 + (random.nextDouble() - 0.5) * 0.54);
+            activities.add(new Activity("" + a, "address", "Rennes", coordinates, ActivityType.CULTURE, 10., List.of(true, true, true, true, true, true, true)));
+        }
+        List<LatLng> hotels = new ArrayList<>();
+        for (int h = 0; h < HOTELS; h++) {
+            hotels.add(new LatLng(48.1 + (random.nextDouble() - 0.5) * 0.36, -1.65 + (random.nextDouble() - 0.5) * 0.54));
+        }
+
+        long buildStart = System.nanoTime();
+        SpatialIndex<Activity> index = new SpatialIndex<>(activities, Activity::coordinates);
+        long buildNanos = System.nanoTime() - buildStart;
+
+        long linearNanos = Long.MAX_VALUE;
+        long indexNanos = Long.MAX_VALUE;
+        long found = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            List<List<Activity>> linear = new ArrayList<>();
+            for (LatLng hotel : hotels) {
+                linear.add(activities.stream().filter(a -> hotel.distance(a.coordinates()) <= RADIUS).toList());
+            }
+            linearNanos = Math.min(linearNanos, System.nanoTime() - start);
+
+            start = System.nanoTime();
+            List<List<Activity>> indexed = new ArrayList<>();
+            for (LatLng hotel : hotels) {
+                indexed.add(index.within(hotel, RADIUS));
+            }
+            indexNanos = Math.min(indexNanos, System.nanoTime() - start);
+
+            assertEquals(linear, indexed);
+            found = indexed.stream().mapToLong(List::size).sum();
+        }
+
+        System.out.printf("SpatialIndex: %d activities, %d hotels, %.0f km (%d activities found)%n", ACTIVITIES, HOTELS, RADIUS, found);
+        System.out.printf("  build %.1f ms, linear scan %.1f ms, index %.1f ms (x%.1f)%n",
+                buildNanos / 1e6, linearNanos / 1e6, indexNanos / 1e6, (double) linearNanos / indexNanos);
+    }
+}
@@ -0,0 +1,109 @@
+package com.testlog.projet.services;
+
+import com.testlog.projet.types.LatLng;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpatialIndexTest {
+
+    private static List<LatLng> linearScan(List<LatLng> points, LatLng center, double radius) {
+        return points.stream().filter(p -> center.distance(p) <= radius).toList();
+    }
+
+    private static List<LatLng> randomPoints(Random random, int count, double lat, double lng, double spread) {
+        List<LatLng> points = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            double pointLat = Math.max(-90, Math.min(90, lat + (random.nextDouble() - 0.5) * spread));
+            double pointLng = lng + (random.nextDouble() - 0.5) * spread;
+            points.add(new LatLng(pointLat, ((pointLng + 540) % 360) - 180));
+        }
+        return points;
+    }
+
+    @Test
+    public void testWithin_withNoElements() {
+        SpatialIndex<LatLng> index = new SpatialIndex<>(List.of(), Function.identity());
+
+        assertTrue(index.within(new LatLng(48., -1.), 10).isEmpty());
+    }
+
+    @Test
+    public void testWithin_keepsOrderOfList() {
+        LatLng a = new LatLng(48.11, -1.68);
+        LatLng b = new LatLng(48.09, -1.62);
+        LatLng c = new LatLng(45.76, 4.84);
+        SpatialIndex<LatLng> index = new SpatialIndex<>(List.of(b, c, a), Function.identity());
+
+        assertEquals(List.of(b, a), index.within(new LatLng(48.1, -1.65), 10));
+    }
+
+    @Test
+    public void testWithin_includesPointsAtExactDistance() {
+        LatLng center = new LatLng(1., 1.);
+        LatLng point = new LatLng(1.3, 1.3);
+        SpatialIndex<LatLng> index = new SpatialIndex<>(List.of(point), Function.identity());
+
+        assertEquals(List.of(point), index.within(center, center.distance(point)));
+    }
+
+    @Test
+    public void testWithin_withNegativeRadius() {
+        SpatialIndex<LatLng> index = new SpatialIndex<>(List.of(new LatLng(1., 1.)), Function.identity());
+
+        assertTrue(index.within(new LatLng(1., 1.), -1).isEmpty());
+    }
+
+    @Test
+    public void testWithin_sameAsLinearScan_inACity() {
+        Random random = new Random(1);
+        List<LatLng> points = randomPoints(random, 2_000, 48.1, -1.65, 0.5);
+        SpatialIndex<LatLng> index = new SpatialIndex<>(points, Function.identity());
+
+        for (int query = 0; query < 200; query++) {
+            LatLng center = randomPoints(random, 1, 48.1, -1.65, 0.6).getFirst();
+            double radius = random.nextDouble() * 20;
+
+            assertEquals(linearScan(points, center, radius), index.within(center, radius));
+        }
+    }
+
+    @Test
+    public void testWithin_sameAsLinearScan_nearPolesAndAntimeridian() {
+        Random random = new Random(2);
+        for (double[] area : new double[][]{{89.9, 0}, {-89.9, 50}, {0, 179.9}, {60, -179.9}}) {
+            List<LatLng> points = randomPoints(random, 500, area[0], area[1], 2);
+            SpatialIndex<LatLng> index = new SpatialIndex<>(points, Function.identity());
+
+            for (int query = 0; query < 50; query++) {
+                LatLng center = randomPoints(random, 1, area[0], area[1], 2).getFirst();
+                double radius = random.nextDouble() * 150;
+
+                assertEquals(linearScan(points, center, radius), index.within(center, radius));
+            }
+        }
+    }
+
+    @Test
+    public void testWithin_sameAsLinearScan_withLargeRadius() {
+        Random random = new Random(3);
+        List<LatLng> points = randomPoints(random, 500, 0, 0, 360);
+        SpatialIndex<LatLng> index = new SpatialIndex<>(points, Function.identity());
+
+        for (double radius : new double[]{1_000, 10_000, 20_000, Double.POSITIVE_INFINITY}) {
+            LatLng center = new LatLng(45., 3.);
+
+            assertEquals(linearScan(points, center, radius), index.within(center, radius));
+        }
+    }
+
+    @Test
+    public void testConstructor_withInvalidCellSize() {
+        assertThrows(IllegalArgumentException.class, () -> new SpatialIndex<>(List.<LatLng>of(), Function.identity(), 0));
+    }
+}
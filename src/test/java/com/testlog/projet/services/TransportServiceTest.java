@@ -2,6 +2,7 @@ package com.testlog.projet.services;
 
 import com.testlog.projet.services.io.IFileReader;
 import com.testlog.projet.types.SimpleTrip;
+import com.testlog.projet.types.TransportationMode;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -71,9 +72,9 @@ public class TransportServiceTest {
         String trip = "{\"destination\":\"Destination\",\"mode\":\"train\",\"price\":12.5,\"hours\":[{\"start\":\"invalid-time\",\"end\":\"10:00\"}]}";
 
         when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "]}");
-        TransportService service = new TransportService(fileReader);
 
-        assertThrows(RuntimeException.class, () -> service.getForCity("TestCity", midnight));
+        // Times are parsed when the timetable is compiled, not on every query
+        assertThrows(RuntimeException.class, () -> new TransportService(fileReader));
     }
 
     @Test
@@ -121,4 +122,127 @@ public class TransportServiceTest {
 
         assertEquals(0, trips.size());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetForCity_sortedByDepartureTime() throws IOException {
+        String tripB = "{\"destination\":\"DestinationB\",\"mode\":\"plane\",\"price\":15.0,\"hours\":[{\"start\":\"07:00\",\"end\":\"08:00\"},{\"start\":\"09:00\",\"end\":\"10:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "," + tripB + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        List<SimpleTrip> trips = service.getForCity("TestCity", midnight);
+
+        assertEquals(3, trips.size());
+        assertEquals(LocalTime.of(7, 0), trips.get(0).departureTime().toLocalTime(), "Wrong first departure");
+        assertEquals(LocalTime.of(8, 0), trips.get(1).departureTime().toLocalTime(), "Wrong second departure");
+        assertEquals(LocalTime.of(9, 0), trips.get(2).departureTime().toLocalTime(), "Wrong third departure");
+        assertEquals("PLANE", trips.get(0).mode().toString(), "Wrong mode");
+    }
+
+    @Test
+    public void testGetForCity_onlyDeparturesAfterDateTime() throws IOException {
+        String tripB = "{\"destination\":\"DestinationB\",\"mode\":\"train\",\"price\":15.0,\"hours\":[{\"start\":\"09:00\",\"end\":\"11:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "," + tripB + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        List<SimpleTrip> fromEight = service.getForCity("TestCity", LocalDateTime.of(LocalDate.now(), LocalTime.of(8, 0)));
+        List<SimpleTrip> afterEight = service.getForCity("TestCity", LocalDateTime.of(LocalDate.now(), LocalTime.of(8, 0, 30)));
+
+        assertEquals(2, fromEight.size());
+        assertEquals(1, afterEight.size());
+        assertEquals("DestinationB", afterEight.getFirst().arrivalCity(), "Wrong destination");
+    }
+
+    @Test
+    public void testGetMinPrice() throws IOException {
+        String direct = "{\"destination\":\"DestinationB\",\"mode\":\"plane\",\"price\":50.0,\"hours\":[{\"start\":\"08:00\",\"end\":\"09:00\"}]}";
+        String connection = "{\"destination\":\"DestinationB\",\"mode\":\"train\",\"price\":10.0,\"hours\":[{\"start\":\"06:00\",\"end\":\"07:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "," + direct + "],\"Destination\":[" + connection + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        assertEquals(12.5, service.getMinPrice("TestCity", "Destination", TransportationMode.NOT_SPECIFIED));
+        // Schedules are ignored: the connection through Destination leaves before the arrival there
+        assertEquals(22.5, service.getMinPrice("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+        assertEquals(0., service.getMinPrice("TestCity", "TestCity", TransportationMode.NOT_SPECIFIED));
+        assertEquals(Double.POSITIVE_INFINITY, service.getMinPrice("Destination", "TestCity", TransportationMode.NOT_SPECIFIED));
+        assertEquals(Double.POSITIVE_INFINITY, service.getMinPrice("NoSuchCity", "TestCity", TransportationMode.NOT_SPECIFIED));
+    }
+
+    @Test
+    public void testGetMinDuration() throws IOException {
+        String direct = "{\"destination\":\"DestinationB\",\"mode\":\"plane\",\"price\":50.0,\"hours\":[{\"start\":\"08:00\",\"end\":\"11:30\"}]}";
+        String connection = "{\"destination\":\"DestinationB\",\"mode\":\"train\",\"price\":10.0,\"hours\":[{\"start\":\"06:00\",\"end\":\"07:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "," + direct + "],\"Destination\":[" + connection + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        assertEquals(120., service.getMinDuration("TestCity", "Destination", TransportationMode.NOT_SPECIFIED));
+        assertEquals(180., service.getMinDuration("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+        assertEquals(Double.POSITIVE_INFINITY, service.getMinDuration("DestinationB", "TestCity", TransportationMode.NOT_SPECIFIED));
+    }
+
+    @Test
+    public void testGetMinLegs_andReachability_byMode() throws IOException {
+        String direct = "{\"destination\":\"DestinationB\",\"mode\":\"plane\",\"price\":50.0,\"hours\":[{\"start\":\"08:00\",\"end\":\"09:00\"}]}";
+        String connection = "{\"destination\":\"DestinationB\",\"mode\":\"train\",\"price\":10.0,\"hours\":[{\"start\":\"06:00\",\"end\":\"07:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "," + direct + "],\"Destination\":[" + connection + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        assertEquals(1, service.getMinLegs("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+        assertEquals(1, service.getMinLegs("TestCity", "DestinationB", TransportationMode.PLANE));
+        assertEquals(2, service.getMinLegs("TestCity", "DestinationB", TransportationMode.TRAIN));
+        assertEquals(Integer.MAX_VALUE, service.getMinLegs("TestCity", "Destination", TransportationMode.PLANE));
+        assertEquals(50., service.getMinPrice("TestCity", "DestinationB", TransportationMode.PLANE));
+        assertEquals(22.5, service.getMinPrice("TestCity", "DestinationB", TransportationMode.TRAIN));
+
+        assertTrue(service.isReachable("TestCity", "DestinationB", TransportationMode.TRAIN));
+        assertFalse(service.isReachable("TestCity", "Destination", TransportationMode.PLANE));
+        assertFalse(service.isReachable("DestinationB", "TestCity", TransportationMode.NOT_SPECIFIED));
+    }
+
+    @Test
+    public void testReload() throws IOException {
+        String tripB = "{\"destination\":\"DestinationB\",\"mode\":\"plane\",\"price\":15.0,\"hours\":[{\"start\":\"09:00\",\"end\":\"10:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "]}", "{\"TestCity\":[" + tripB + "]}");
+        TransportService service = new TransportService(fileReader);
+
+        assertTrue(service.isReachable("TestCity", "Destination", TransportationMode.NOT_SPECIFIED));
+        assertFalse(service.isReachable("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+
+        service.reload();
+
+        assertFalse(service.isReachable("TestCity", "Destination", TransportationMode.NOT_SPECIFIED));
+        assertTrue(service.isReachable("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+        assertEquals(15., service.getMinPrice("TestCity", "DestinationB", TransportationMode.NOT_SPECIFIED));
+        assertEquals("DestinationB", service.getForCity("TestCity", midnight).getFirst().arrivalCity(), "Wrong destination");
+    }
+
+    @Test
+    public void testGetForCity_byId() throws IOException {
+        String tripB = "{\"destination\":\"TestCity\",\"mode\":\"plane\",\"price\":15.0,\"hours\":[{\"start\":\"09:00\",\"end\":\"10:00\"}]}";
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "],\"Destination\":[" + tripB + "]}");
+        TransportService service = new TransportService(fileReader);
+        int testCity = service.getCities().find("TestCity");
+        int destination = service.getCities().find("Destination");
+
+        assertEquals(service.getForCity("TestCity", midnight), service.getForCity(testCity, midnight));
+        assertArrayEquals(new int[]{destination}, service.getDepartures(testCity, midnight).arrivalCities());
+        assertArrayEquals(new int[]{testCity}, service.getDepartures(destination, midnight).arrivalCities());
+        assertEquals(service.getForCity("Destination", midnight), service.getDepartures(destination, midnight).trips());
+        assertArrayEquals(new int[0], service.getDepartures(destination, midnight.plusHours(12)).arrivalCities());
+        assertTrue(service.getForCity(-1, midnight).isEmpty());
+    }
+
+    @Test
+    public void testSharedRegistry() throws IOException {
+        when(fileReader.readAll(anyString())).thenReturn("{\"TestCity\":[" + trip + "]}");
+        CityRegistry cities = new CityRegistry();
+        int other = cities.register("OtherCity");
+
+        TransportService service = new TransportService(fileReader, cities);
+
+        assertEquals(3, cities.size());
+        assertTrue(service.getForCity(other, midnight).isEmpty());
+        assertFalse(service.isReachable("OtherCity", "TestCity", TransportationMode.NOT_SPECIFIED));
+        // Names come from the registry, so all the trips share them
+        assertSame(cities.name(cities.find("Destination")), service.getForCity("TestCity", midnight).getFirst().arrivalCity());
+    }
+}
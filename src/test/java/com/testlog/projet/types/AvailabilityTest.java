@@ -0,0 +1,51 @@
+package com.testlog.projet.types;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AvailabilityTest {
+
+    @Test
+    public void testOf_behavesLikeTheList() {
+        List<Boolean> days = List.of(true, false, true, false, true, false, false);
+
+        List<Boolean> availability = Availability.of(Availability.mask(days));
+
+        assertEquals(days, availability);
+        assertEquals(availability, days);
+        assertEquals(days.hashCode(), availability.hashCode());
+        assertEquals(days.toString(), availability.toString());
+    }
+
+    @Test
+    public void testOf_sharedInstances() {
+        assertSame(Availability.of((byte) 0xFF), Availability.of((byte) 0x7F));
+        assertSame(Availability.of((byte) 5), Availability.of((byte) 5));
+    }
+
+    @Test
+    public void testMask() {
+        assertEquals(0b0010101, Availability.mask(List.of(true, false, true, false, true, false, false)));
+        assertEquals(0b0000001, Availability.mask(Arrays.asList(true, null, false)));
+        assertEquals(0b1000000, Availability.of((byte) 0b1000000).mask());
+    }
+
+    @Test
+    public void testGet() {
+        Availability availability = Availability.of((byte) 0b0000101);
+
+        assertTrue(availability.get(0));
+        assertFalse(availability.get(1));
+        assertTrue(availability.get(2));
+        assertThrows(IndexOutOfBoundsException.class, () -> availability.get(7));
+    }
+
+    @Test
+    public void testCannotBeModified() {
+        assertThrows(UnsupportedOperationException.class, () -> Availability.of((byte) 0).set(0, true));
+    }
+}
@@ -2,7 +2,10 @@ package com.testlog.projet.types;
 
 import org.junit.jupiter.api.Test;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class LatLngTest {
 
@@ -40,4 +43,118 @@ public class LatLngTest {
         LatLng b = new LatLng(2., -2.);
         assertEquals(471.724, a.distance(b), 0.001);
     }
-}
\ No newline at end of file
+
+    /**
+     * Formula used before the sines and cosines were cached.
+     * Below a few km, '1 - cos' loses digits and this formula is only accurate to about 1e-8 km.
+     */
+    private static double referenceDistance(LatLng a, LatLng b) {
+        double lat1 = Math.toRadians(a.lat());
+        double lng1 = Math.toRadians(a.lng());
+        double lat2 = Math.toRadians(b.lat());
+        double lng2 = Math.toRadians(b.lng());
+
+        double sqrtArg = 1 - Math.cos(lat2 - lat1) + Math.cos(lat1) * Math.cos(lat2) * (1 - Math.cos(lng2 - lng1));
+
+        return 2 * 6371.0 * Math.asin(Math.sqrt(sqrtArg / 2));
+    }
+
+    /**
+     * Haversine formula with the sines of the differences, accurate for close points.
+     */
+    private static double haversineDistance(LatLng a, LatLng b) {
+        double sinHalfDLat = Math.sin(Math.toRadians(b.lat() - a.lat()) / 2);
+        double sinHalfDLng = Math.sin(Math.toRadians(b.lng() - a.lng()) / 2);
+        double h = sinHalfDLat * sinHalfDLat + Math.cos(Math.toRadians(a.lat())) * Math.cos(Math.toRadians(b.lat())) * sinHalfDLng * sinHalfDLng;
+
+        return 2 * 6371.0 * Math.asin(Math.sqrt(h));
+    }
+
+    private static LatLng randomPoint(Random random) {
+        return new LatLng(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+    }
+
+    @Test
+    public void testDistance_sameAsReferenceFormula() {
+        for (LatLng[] pair : new LatLng[][]{
+                {new LatLng(1., 1.), new LatLng(2., 1.)},
+                {new LatLng(1., 1.), new LatLng(1., 2.)},
+                {new LatLng(1., 1.), new LatLng(2., 2.)},
+                {new LatLng(-1., 1.), new LatLng(2., -2.)}}) {
+            assertEquals(referenceDistance(pair[0], pair[1]), pair[0].distance(pair[1]), 1e-9);
+        }
+
+        Random random = new Random(1);
+        for (int i = 0; i < 10_000; i++) {
+            LatLng a = randomPoint(random);
+            LatLng b = randomPoint(random);
+
+            assertEquals(referenceDistance(a, b), a.distance(b), 1e-9);
+        }
+    }
+
+    @Test
+    public void testDistance_withClosePoints() {
+        Random random = new Random(3);
+        for (int i = 0; i < 10_000; i++) {
+            LatLng a = randomPoint(random);
+            LatLng b = new LatLng(a.lat() + random.nextDouble() * 0.5, a.lng() - random.nextDouble() * 0.5);
+
+            assertEquals(haversineDistance(a, b), a.distance(b), 1e-9);
+        }
+    }
+
+    @Test
+    public void testDistance_withAntipodalPoints() {
+        LatLng a = new LatLng(45., 10.);
+        LatLng b = new LatLng(-45., -170.);
+
+        assertEquals(Math.PI * 6371.0, a.distance(b), 1e-9);
+    }
+
+    @Test
+    public void testDistances_sameAsDistance() {
+        LatLng a = new LatLng(1., 1.);
+        List<LatLng> others = List.of(new LatLng(2., 1.), new LatLng(1., 2.), new LatLng(1., 1.));
+
+        assertArrayEquals(new double[]{a.distance(others.get(0)), a.distance(others.get(1)), 0.}, a.distances(others));
+    }
+
+    @Test
+    public void testIsWithin_sameAsDistance() {
+        Random random = new Random(2);
+        for (int i = 0; i < 10_000; i++) {
+            LatLng a = randomPoint(random);
+            LatLng b = new LatLng(Math.max(-90, a.lat() - random.nextDouble()), a.lng() + random.nextDouble());
+            double radius = random.nextDouble() * 200;
+
+            assertEquals(a.distance(b) <= radius, a.isWithin(b, radius));
+        }
+    }
+
+    @Test
+    public void testIsWithin_atExactDistance() {
+        LatLng a = new LatLng(1., 1.);
+        LatLng b = new LatLng(1.3, 1.3);
+
+        assertTrue(a.isWithin(b, a.distance(b)));
+        assertFalse(a.isWithin(b, Math.nextDown(a.distance(b))));
+    }
+
+    @Test
+    public void testIsWithin_withExtremeRadius() {
+        LatLng a = new LatLng(1., 1.);
+
+        assertTrue(a.isWithin(new LatLng(-1., -179.), 20_100));
+        assertTrue(a.isWithin(a, 0));
+        assertFalse(a.isWithin(a, -1));
+    }
+
+    @Test
+    public void testEqualsAndHashCode() {
+        assertEquals(new LatLng(1., 2.), new LatLng(1., 2.));
+        assertEquals(new LatLng(1., 2.).hashCode(), new LatLng(1., 2.).hashCode());
+        assertNotEquals(new LatLng(1., 2.), new LatLng(2., 1.));
+        assertEquals("LatLng[lat=1.0, lng=2.0]", new LatLng(1., 2.).toString());
+    }
+}